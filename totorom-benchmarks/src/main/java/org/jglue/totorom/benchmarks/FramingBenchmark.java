@@ -0,0 +1,115 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jglue.totorom.SideEffectFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.gremlin.java.GremlinPipeline;
+
+/**
+ * Materializing typed results with <code>toList(Class)</code>. The results
+ * are read twice to mimic callers that index into the returned list. The
+ * scan benchmarks compare framing a whole graph with and without flyweight
+ * frames.
+ * 
+ * @author Bryn Cooke (http://jglue.org)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FramingBenchmark {
+
+	@Benchmark
+	public void gremlinToList(GraphState state, Blackhole blackhole) {
+		List<Vertex> results = new GremlinPipeline<>(state.sampleVertices()).both().both().toList();
+		for (int index = 0; index < results.size(); index++) {
+			blackhole.consume(results.get(index).getProperty("score"));
+			blackhole.consume(results.get(index).getProperty("score"));
+		}
+	}
+
+	@Benchmark
+	public void totoromToList(GraphState state, Blackhole blackhole) {
+		List<? extends Item> results = state.framedGraph.v(state.vertexIds).both().both().toList(Item.class);
+		for (int index = 0; index < results.size(); index++) {
+			blackhole.consume(results.get(index).getScore());
+			blackhole.consume(results.get(index).getScore());
+		}
+	}
+
+	@Benchmark
+	public void totoromScan(GraphState state, final Blackhole blackhole) {
+		for (Item item : state.framedGraph.V().toList(Item.class)) {
+			blackhole.consume(item.getScore());
+		}
+	}
+
+	@Benchmark
+	public void totoromScanFlyweight(GraphState state, final Blackhole blackhole) {
+		state.framedGraph.V().forEachFramed(Item.class, new SideEffectFunction<Item>() {
+
+			@Override
+			public void execute(Item item) {
+				blackhole.consume(item.getScore());
+			}
+		});
+	}
+}
@@ -0,0 +1,175 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.jglue.totorom.FramedGraph;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+
+/**
+ * Shared benchmark state. Generates a random TinkerGraph of the requested
+ * size with a fixed seed so that every fork sees the same graph.
+ *
+ * Every vertex has an <code>indexed</code> property that is backed by a key
+ * index and an <code>unindexed</code> property with the same value that is
+ * not, so that <code>has()</code> can be measured with and without index
+ * support on the same data.
+ *
+ * @author Bryn Cooke (http://jglue.org)
+ */
+@State(Scope.Benchmark)
+public class GraphState {
+
+	/**
+	 * The number of out edges created for each vertex.
+	 */
+	public static final int DEGREE = 3;
+
+	/**
+	 * The number of start elements used by the id based and multi-hop
+	 * benchmarks.
+	 */
+	public static final int SAMPLE_SIZE = 100;
+
+	/**
+	 * The number of distinct values for the <code>type</code> property.
+	 */
+	public static final int TYPES = 10;
+
+	@Param({ "1000", "10000", "100000", "1000000" })
+	public int vertices;
+
+	public TinkerGraph graph;
+	public FramedGraph framedGraph;
+	public Object[] vertexIds;
+	public Object[] edgeIds;
+	public String lookupValue;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Random random = new Random(42);
+		graph = new TinkerGraph();
+		graph.createKeyIndex("indexed", Vertex.class);
+
+		List<Vertex> created = new ArrayList<>(vertices);
+		for (int count = 0; count < vertices; count++) {
+			Vertex v = graph.addVertex(null);
+			v.setProperty("indexed", "name" + count);
+			v.setProperty("unindexed", "name" + count);
+			v.setProperty("type", "type" + (count % TYPES));
+			v.setProperty("score", random.nextInt(1000));
+			created.add(v);
+		}
+
+		List<Object> createdEdges = new ArrayList<>(vertices * DEGREE);
+		for (Vertex out : created) {
+			for (int count = 0; count < DEGREE; count++) {
+				Vertex in = created.get(random.nextInt(vertices));
+				Edge e = out.addEdge("link", in);
+				e.setProperty("weight", random.nextInt(100));
+				createdEdges.add(e.getId());
+			}
+		}
+
+		vertexIds = new Object[SAMPLE_SIZE];
+		edgeIds = new Object[SAMPLE_SIZE];
+		for (int count = 0; count < SAMPLE_SIZE; count++) {
+			vertexIds[count] = created.get(random.nextInt(vertices)).getId();
+			edgeIds[count] = createdEdges.get(random.nextInt(createdEdges.size()));
+		}
+		lookupValue = "name" + random.nextInt(vertices);
+
+		framedGraph = new FramedGraph(graph);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		graph.shutdown();
+	}
+
+	/**
+	 * Look up the sample vertices by id in the same way that
+	 * {@link FramedGraph#v(Object...)} does.
+	 * 
+	 * @return The sample vertices.
+	 */
+	public List<Vertex> sampleVertices() {
+		List<Vertex> starts = new ArrayList<>(vertexIds.length);
+		for (Object id : vertexIds) {
+			starts.add(graph.getVertex(id));
+		}
+		return starts;
+	}
+
+	/**
+	 * Consume every element of a result. Totorom may return lazily framed
+	 * lists so consuming the list object alone would not measure framing.
+	 * 
+	 * @param blackhole
+	 *            The blackhole to consume into.
+	 * @param results
+	 *            The results to consume.
+	 */
+	public static void consumeAll(Blackhole blackhole, Iterable<?> results) {
+		for (Object result : results) {
+			blackhole.consume(result);
+		}
+	}
+}
@@ -0,0 +1,201 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jglue.totorom.Comparators;
+import org.jglue.totorom.TVertex;
+import org.jglue.totorom.TraversalFunction;
+import org.jglue.totorom.VertexTraversal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.gremlin.java.GremlinPipeline;
+import com.tinkerpop.pipes.PipeFunction;
+import com.tinkerpop.pipes.util.structures.Pair;
+
+/**
+ * Multi-hop navigation, k-hop expansion, property lookups with and without a
+ * key index and top-K sorting.
+ * 
+ * @author Bryn Cooke (http://jglue.org)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraversalBenchmark {
+
+	/**
+	 * The number of elements kept by the top-K benchmarks.
+	 */
+	private static final int TOP = 20;
+
+	private static final PipeFunction<Pair<Vertex, Vertex>, Integer> BY_SCORE = new PipeFunction<Pair<Vertex, Vertex>, Integer>() {
+		@Override
+		public Integer compute(Pair<Vertex, Vertex> argument) {
+			Integer a = argument.getA().getProperty("score");
+			Integer b = argument.getB().getProperty("score");
+			return a.compareTo(b);
+		}
+	};
+
+	private static final TraversalFunction<TVertex, VertexTraversal<?, ?, ?>> BOTH = new TraversalFunction<TVertex, VertexTraversal<?, ?, ?>>() {
+		@Override
+		public VertexTraversal<?, ?, ?> compute(TVertex argument) {
+			return argument.both();
+		}
+	};
+
+	private static final TraversalFunction<TVertex, Integer> SCORE = new TraversalFunction<TVertex, Integer>() {
+		@Override
+		public Integer compute(TVertex argument) {
+			return argument.getProperty("score");
+		}
+	};
+
+	@Benchmark
+	public void gremlinBothBothBoth(GraphState state, Blackhole blackhole) {
+		for (Object id : state.vertexIds) {
+			GraphState.consumeAll(blackhole, new GremlinPipeline<>(state.graph.getVertex(id)).both().both().both().toList());
+		}
+	}
+
+	@Benchmark
+	public void totoromBothBothBoth(GraphState state, Blackhole blackhole) {
+		for (Object id : state.vertexIds) {
+			GraphState.consumeAll(blackhole, state.framedGraph.v(id).both().both().both().toList());
+		}
+	}
+
+	@Benchmark
+	public void totoromLoopBoth(GraphState state, Blackhole blackhole) {
+		GraphState.consumeAll(blackhole, state.framedGraph.v(state.vertexIds).loop(BOTH, 3).toList());
+	}
+
+	@Benchmark
+	public void totoromBreadthFirstBoth(GraphState state, Blackhole blackhole) {
+		GraphState.consumeAll(blackhole, state.framedGraph.v(state.vertexIds).breadthFirst(BOTH, 3).toList());
+	}
+
+	@Benchmark
+	public void gremlinHasIndexed(GraphState state, Blackhole blackhole) {
+		GraphState.consumeAll(blackhole, new GremlinPipeline<>(state.graph).V("indexed", state.lookupValue).toList());
+	}
+
+	@Benchmark
+	public void totoromHasIndexed(GraphState state, Blackhole blackhole) {
+		GraphState.consumeAll(blackhole, state.framedGraph.V().has("indexed", state.lookupValue).toList());
+	}
+
+	@Benchmark
+	public void gremlinHasUnindexed(GraphState state, Blackhole blackhole) {
+		GraphState.consumeAll(blackhole, new GremlinPipeline<>(state.graph).V().has("unindexed", state.lookupValue).toList());
+	}
+
+	@Benchmark
+	public void totoromHasUnindexed(GraphState state, Blackhole blackhole) {
+		GraphState.consumeAll(blackhole, state.framedGraph.V().has("unindexed", state.lookupValue).toList());
+	}
+
+	@Benchmark
+	public void gremlinHasMultiple(GraphState state, Blackhole blackhole) {
+		GraphState.consumeAll(blackhole, new GremlinPipeline<>(state.graph).V().has("type", "type1").has("indexed", state.lookupValue).toList());
+	}
+
+	@Benchmark
+	public void totoromHasMultiple(GraphState state, Blackhole blackhole) {
+		GraphState.consumeAll(blackhole, state.framedGraph.V().has("type", "type1").has("indexed", state.lookupValue).toList());
+	}
+
+	@Benchmark
+	public void gremlinTopScores(GraphState state, Blackhole blackhole) {
+		GraphState.consumeAll(blackhole, new GremlinPipeline<>(state.graph).V().order(BY_SCORE).range(0, TOP - 1).toList());
+	}
+
+	@Benchmark
+	public void totoromTopScoresComparator(GraphState state, Blackhole blackhole) {
+		GraphState.consumeAll(blackhole, state.framedGraph.V().order(Comparators.<TVertex> property("score")).limit(TOP).toList());
+	}
+
+	@Benchmark
+	public void totoromTopScores(GraphState state, Blackhole blackhole) {
+		GraphState.consumeAll(blackhole, state.framedGraph.V().orderBy(SCORE).limit(TOP).toList());
+	}
+
+	@Benchmark
+	public void gremlinSumWeights(GraphState state, Blackhole blackhole) {
+		long sum = 0;
+		for (Object weight : new GremlinPipeline<>(state.graph).E().property("weight").toList()) {
+			sum += ((Number) weight).longValue();
+		}
+		blackhole.consume(sum);
+	}
+
+	@Benchmark
+	public void totoromSumWeightsList(GraphState state, Blackhole blackhole) {
+		long sum = 0;
+		for (Object weight : state.framedGraph.E().property("weight").toList()) {
+			sum += ((Number) weight).longValue();
+		}
+		blackhole.consume(sum);
+	}
+
+	@Benchmark
+	public void totoromSumWeights(GraphState state, Blackhole blackhole) {
+		blackhole.consume(state.framedGraph.E().sumLong("weight"));
+	}
+}
@@ -0,0 +1,198 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom.stream;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+import org.jglue.totorom.UnframedResults;
+
+/**
+ * A {@link Spliterator} over the results of a traversal.
+ * <p>
+ * The size of a traversal is unknown until it has been exhausted, so the
+ * spliterator splits by copying successive batches of unframed results into
+ * arrays, growing the batch size each time so that large traversals are split
+ * into a reasonable number of parallel tasks. Results are framed as they are
+ * consumed, so the results of a batch are framed by the task that processes
+ * it.
+ * 
+ * @author Bryn Cooke (http://jglue.org)
+ */
+public class TraversalSpliterator<T> implements Spliterator<T> {
+
+	/**
+	 * The size of the first batch split off for parallel processing.
+	 */
+	public static final int BATCH_UNIT = 1 << 10;
+
+	/**
+	 * The largest batch split off for parallel processing.
+	 */
+	public static final int MAX_BATCH = 1 << 25;
+
+	private final UnframedResults<T> results;
+	private final int characteristics;
+	private int batch;
+
+	/**
+	 * @param results
+	 *            The results of the traversal.
+	 * @param characteristics
+	 *            Characteristics of the results in addition to
+	 *            {@link Spliterator#ORDERED}.
+	 */
+	public TraversalSpliterator(UnframedResults<T> results, int characteristics) {
+		this.results = results;
+		this.characteristics = characteristics | ORDERED;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+		if (action == null) {
+			throw new NullPointerException();
+		}
+		if (results.hasNext()) {
+			action.accept(results.frame(results.next()));
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public void forEachRemaining(Consumer<? super T> action) {
+		if (action == null) {
+			throw new NullPointerException();
+		}
+		while (results.hasNext()) {
+			action.accept(results.frame(results.next()));
+		}
+	}
+
+	@Override
+	public Spliterator<T> trySplit() {
+		if (!results.hasNext()) {
+			return null;
+		}
+		int size = Math.min(batch + BATCH_UNIT, MAX_BATCH);
+		Object[] batched = new Object[size];
+		int count = 0;
+		do {
+			batched[count++] = results.next();
+		} while (count < size && results.hasNext());
+		batch = count;
+		return new FramingSpliterator<>(results, Spliterators.spliterator(batched, 0, count, characteristics));
+	}
+
+	@Override
+	public long estimateSize() {
+		return Long.MAX_VALUE;
+	}
+
+	@Override
+	public int characteristics() {
+		return characteristics;
+	}
+
+	@Override
+	public Comparator<? super T> getComparator() {
+		throw new IllegalStateException();
+	}
+
+	/**
+	 * A batch of unframed results that are framed as they are consumed.
+	 */
+	private static class FramingSpliterator<T> implements Spliterator<T> {
+
+		private final UnframedResults<T> results;
+		private final Spliterator<Object> batch;
+
+		FramingSpliterator(UnframedResults<T> results, Spliterator<Object> batch) {
+			this.results = results;
+			this.batch = batch;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			return batch.tryAdvance(result -> action.accept(results.frame(result)));
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super T> action) {
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			batch.forEachRemaining(result -> action.accept(results.frame(result)));
+		}
+
+		@Override
+		public Spliterator<T> trySplit() {
+			Spliterator<Object> split = batch.trySplit();
+			return split == null ? null : new FramingSpliterator<>(results, split);
+		}
+
+		@Override
+		public long estimateSize() {
+			return batch.estimateSize();
+		}
+
+		@Override
+		public int characteristics() {
+			return batch.characteristics();
+		}
+
+		@Override
+		public Comparator<? super T> getComparator() {
+			throw new IllegalStateException();
+		}
+	}
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom.stream;
+
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.jglue.totorom.EdgeTraversal;
+import org.jglue.totorom.FramedEdge;
+import org.jglue.totorom.FramedVertex;
+import org.jglue.totorom.Traversal;
+import org.jglue.totorom.VertexTraversal;
+
+/**
+ * Bridges traversals to Java 8 streams. Results are framed lazily as the
+ * stream consumes them. The traversal is drained by the stream and must not
+ * be used once the stream has been created. Streams may contain nulls, for
+ * instance for ids passed to <code>v(ids)</code> that do not exist.
+ * <p>
+ * The results of a parallel stream are framed on its worker threads, so they
+ * do not use the identity map, property cache or write buffer of the thread
+ * that created the stream.
+ * 
+ * <pre>
+ * Map&lt;String, Long&gt; counts = TraversalStreams.parallelStream(graph.V(), Person.class)
+ * 		.collect(Collectors.groupingBy(Person::getName, Collectors.counting()));
+ * </pre>
+ * 
+ * @author Bryn Cooke (http://jglue.org)
+ */
+public class TraversalStreams {
+
+	/**
+	 * Stream the results of a traversal. Vertices and edges are framed as
+	 * {@link org.jglue.totorom.TVertex} and {@link org.jglue.totorom.TEdge}.
+	 * 
+	 * @param traversal
+	 *            The traversal.
+	 * @return A sequential stream of the results.
+	 */
+	public static <T> Stream<T> stream(Traversal<T, ?, ?, ?> traversal) {
+		return StreamSupport.stream(spliterator(traversal), false);
+	}
+
+	/**
+	 * Stream the results of a traversal in parallel. Vertices and edges are
+	 * framed as {@link org.jglue.totorom.TVertex} and
+	 * {@link org.jglue.totorom.TEdge}.
+	 * 
+	 * @param traversal
+	 *            The traversal.
+	 * @return A parallel stream of the results.
+	 */
+	public static <T> Stream<T> parallelStream(Traversal<T, ?, ?, ?> traversal) {
+		return StreamSupport.stream(spliterator(traversal), true);
+	}
+
+	/**
+	 * Stream the vertices of a traversal framed as the specified kind.
+	 * 
+	 * @param traversal
+	 *            The traversal.
+	 * @param kind
+	 *            The kind of frame.
+	 * @return A sequential stream of the vertices.
+	 */
+	public static <N extends FramedVertex> Stream<N> stream(VertexTraversal<?, ?, ?> traversal, Class<N> kind) {
+		return StreamSupport.stream(spliterator(traversal, kind), false);
+	}
+
+	/**
+	 * Stream the vertices of a traversal framed as the specified kind in
+	 * parallel.
+	 * 
+	 * @param traversal
+	 *            The traversal.
+	 * @param kind
+	 *            The kind of frame.
+	 * @return A parallel stream of the vertices.
+	 */
+	public static <N extends FramedVertex> Stream<N> parallelStream(VertexTraversal<?, ?, ?> traversal, Class<N> kind) {
+		return StreamSupport.stream(spliterator(traversal, kind), true);
+	}
+
+	/**
+	 * Stream the edges of a traversal framed as the specified kind.
+	 * 
+	 * @param traversal
+	 *            The traversal.
+	 * @param kind
+	 *            The kind of frame.
+	 * @return A sequential stream of the edges.
+	 */
+	public static <N extends FramedEdge> Stream<N> stream(EdgeTraversal<?, ?, ?> traversal, Class<N> kind) {
+		return StreamSupport.stream(spliterator(traversal, kind), false);
+	}
+
+	/**
+	 * Stream the edges of a traversal framed as the specified kind in
+	 * parallel.
+	 * 
+	 * @param traversal
+	 *            The traversal.
+	 * @param kind
+	 *            The kind of frame.
+	 * @return A parallel stream of the edges.
+	 */
+	public static <N extends FramedEdge> Stream<N> parallelStream(EdgeTraversal<?, ?, ?> traversal, Class<N> kind) {
+		return StreamSupport.stream(spliterator(traversal, kind), true);
+	}
+
+	/**
+	 * @param traversal
+	 *            The traversal.
+	 * @return A spliterator over the results of the traversal.
+	 */
+	public static <T> Spliterator<T> spliterator(Traversal<T, ?, ?, ?> traversal) {
+		return new TraversalSpliterator<>(traversal.unframed(), 0);
+	}
+
+	/**
+	 * @param traversal
+	 *            The traversal.
+	 * @param kind
+	 *            The kind of frame.
+	 * @return A spliterator over the vertices of the traversal.
+	 */
+	public static <N extends FramedVertex> Spliterator<N> spliterator(VertexTraversal<?, ?, ?> traversal, Class<N> kind) {
+		return new TraversalSpliterator<>(traversal.unframed(kind), 0);
+	}
+
+	/**
+	 * @param traversal
+	 *            The traversal.
+	 * @param kind
+	 *            The kind of frame.
+	 * @return A spliterator over the edges of the traversal.
+	 */
+	public static <N extends FramedEdge> Spliterator<N> spliterator(EdgeTraversal<?, ?, ?> traversal, Class<N> kind) {
+		return new TraversalSpliterator<>(traversal.unframed(kind), 0);
+	}
+
+	private TraversalStreams() {
+	}
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom.stream;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.jglue.totorom.FrameFactory;
+import org.jglue.totorom.FramedEdge;
+import org.jglue.totorom.FramedElement;
+import org.jglue.totorom.FramedGraph;
+import org.jglue.totorom.FramedVertex;
+import org.jglue.totorom.TEdge;
+import org.jglue.totorom.TVertex;
+import org.jglue.totorom.TypeResolver;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
+
+public class TestTraversalStreams {
+	private FramedGraph graph = new FramedGraph(TinkerGraphFactory.createTinkerGraph());
+
+	public static class Person extends FramedVertex {
+		public String getName() {
+			return getProperty("name");
+		}
+	}
+
+	public static class Created extends FramedEdge {
+		public Float getWeight() {
+			return getProperty("weight");
+		}
+	}
+
+	@Test
+	public void testStream() {
+		List<String> names = TraversalStreams.stream(graph.v(1).out("knows"), Person.class).map(Person::getName)
+				.sorted().collect(Collectors.toList());
+		Assert.assertEquals(2, names.size());
+		Assert.assertEquals("josh", names.get(0));
+		Assert.assertEquals("vadas", names.get(1));
+	}
+
+	@Test
+	public void testStreamUntyped() {
+		Assert.assertEquals(6, TraversalStreams.stream(graph.V()).filter(v -> v instanceof TVertex).count());
+		Assert.assertEquals(6, TraversalStreams.stream(graph.E()).filter(e -> e instanceof TEdge).count());
+	}
+
+	@Test
+	public void testStreamEdges() {
+		double weight = TraversalStreams.stream(graph.E().has("label", "created"), Created.class)
+				.mapToDouble(Created::getWeight).sum();
+		Assert.assertEquals(2.0, weight, 0.0001);
+	}
+
+	@Test
+	public void testParallelStream() {
+		TinkerGraph g = new TinkerGraph();
+		FramedGraph fg = new FramedGraph(g);
+		IntStream.range(0, 5000).forEach(i -> fg.addVertex().setProperty("group", i % 10));
+
+		Map<Object, Long> counts = TraversalStreams.parallelStream(fg.V())
+				.collect(Collectors.groupingByConcurrent(v -> v.getProperty("group"), Collectors.counting()));
+		Assert.assertEquals(10, counts.size());
+		for (Long count : counts.values()) {
+			Assert.assertEquals(500, count.longValue());
+		}
+	}
+
+	@Test
+	public void testSplit() {
+		AtomicInteger created = new AtomicInteger();
+		TinkerGraph g = new TinkerGraph();
+		FramedGraph fg = new FramedGraph(g, new FrameFactory() {
+
+			@Override
+			public <T extends FramedElement> T create(Element e, Class<T> kind) {
+				created.incrementAndGet();
+				return FrameFactory.Default.create(e, kind);
+			}
+		}, TypeResolver.Untyped);
+		IntStream.range(0, 3000).forEach(i -> g.addVertex(null));
+
+		Spliterator<Person> spliterator = TraversalStreams.spliterator(fg.V(), Person.class);
+		Assert.assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED));
+		Spliterator<Person> first = spliterator.trySplit();
+		Assert.assertEquals(TraversalSpliterator.BATCH_UNIT, first.getExactSizeIfKnown());
+		Spliterator<Person> second = spliterator.trySplit();
+		Assert.assertEquals(3000 - TraversalSpliterator.BATCH_UNIT, second.getExactSizeIfKnown());
+		Assert.assertNull(spliterator.trySplit());
+
+		// Batches are framed by whoever consumes them, not when split off.
+		Assert.assertEquals(0, created.get());
+		first.forEachRemaining(Assert::assertNotNull);
+		Assert.assertEquals(TraversalSpliterator.BATCH_UNIT, created.get());
+	}
+
+	@Test
+	public void testMissingIds() {
+		List<Person> people = TraversalStreams.stream(graph.v(1, 99), Person.class).collect(Collectors.toList());
+		Assert.assertEquals(2, people.size());
+		Assert.assertEquals("marko", people.get(0).getName());
+		Assert.assertNull(people.get(1));
+		Assert.assertFalse(TraversalStreams.spliterator(graph.v(1, 99), Person.class).hasCharacteristics(
+				Spliterator.NONNULL));
+	}
+}
@@ -0,0 +1,212 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom;
+
+import java.util.Iterator;
+
+import com.tinkerpop.blueprints.Compare;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Predicate;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.VertexQuery;
+import com.tinkerpop.gremlin.Tokens.T;
+
+/**
+ * A single hop from a vertex to its adjacent edges. The common case of
+ * <code>outE(labels).next()</code>, <code>toList()</code> or
+ * <code>count()</code> is answered directly from blueprints without building
+ * a gremlin pipeline.
+ * 
+ * Property filters, intervals and limits that directly follow the hop are
+ * folded into a single {@link VertexQuery} so that graphs with vertex
+ * centric indexes can answer them without loading every incident edge.
+ * 
+ * @author Bryn Cooke (http://jglue.org)
+ */
+class AdjacentEdgeTraversal extends SimpleEdgeTraversal {
+
+	private FramedVertex start;
+	private Direction direction;
+	private String[] labels;
+	private QueryFilters filters = new QueryFilters();
+
+	AdjacentEdgeTraversal(FramedGraph graph, FramedVertex start, Direction direction, String... labels) {
+		super(graph);
+		this.start = start;
+		this.direction = direction;
+		this.labels = labels;
+	}
+
+	@Override
+	protected Iterator createIterator() {
+		if (filters.isEmpty()) {
+			return ((Vertex) start.element()).getEdges(direction, labels).iterator();
+		}
+		return query().edges().iterator();
+	}
+
+	/**
+	 * @return The vertex query equivalent to this traversal.
+	 */
+	VertexQuery query() {
+		VertexQuery query = ((Vertex) start.element()).query().direction(direction).labels(labels);
+		return (VertexQuery) filters.applyTo(query);
+	}
+
+	@Override
+	protected EdgeTraversal createTraversal() {
+		VertexTraversal vertices = new TraversalImpl(graph, start).castToVertices();
+		EdgeTraversal traversal;
+		switch (direction) {
+		case IN:
+			traversal = vertices.inE(labels);
+			break;
+		case OUT:
+			traversal = vertices.outE(labels);
+			break;
+		default:
+			traversal = vertices.bothE(labels);
+		}
+		return filters.applyTo(traversal);
+	}
+
+	/**
+	 * Further steps must see the start element so that path, back and loop
+	 * behave as they would on a full pipeline. The pipeline starts again from
+	 * the start element, so it cannot be built once iteration has started.
+	 */
+	@Override
+	protected EdgeTraversal simpleDelegate() {
+		if (isIterating()) {
+			throw new IllegalStateException("Traversal cannot be modified after iteration has started");
+		}
+		return delegate();
+	}
+
+	/**
+	 * @return The full traversal to the vertices at the opposite end of each
+	 *         edge.
+	 */
+	VertexTraversal adjacentVertices() {
+		return direction == Direction.OUT ? delegate().inV() : delegate().outV();
+	}
+
+	@Override
+	public VertexTraversal inV() {
+		if (direction == Direction.OUT && isRefinable()) {
+			return new AdjacentVertexTraversal(graph, this);
+		}
+		return super.inV();
+	}
+
+	@Override
+	public VertexTraversal outV() {
+		if (direction == Direction.IN && isRefinable()) {
+			return new AdjacentVertexTraversal(graph, this);
+		}
+		return super.outV();
+	}
+
+	/**
+	 * Counts using the vertex query so that graphs that store degree
+	 * information need not load the edges.
+	 */
+	@Override
+	public long count() {
+		if (isRefinable()) {
+			return query().count();
+		}
+		return super.count();
+	}
+
+	@Override
+	public EdgeTraversal has(String key) {
+		return has(key, Compare.NOT_EQUAL, null);
+	}
+
+	@Override
+	public EdgeTraversal has(String key, Object value) {
+		return has(key, Compare.EQUAL, value);
+	}
+
+	@Override
+	public EdgeTraversal has(String key, T compareToken, Object value) {
+		return filters.tryHas(isRefinable(), key, compareToken, value) ? this : delegate().has(key, compareToken, value);
+	}
+
+	@Override
+	public EdgeTraversal has(String key, Predicate predicate, Object value) {
+		return filters.tryHas(isRefinable(), key, predicate, value) ? this : delegate().has(key, predicate, value);
+	}
+
+	@Override
+	public EdgeTraversal hasNot(String key) {
+		return has(key, Compare.EQUAL, null);
+	}
+
+	@Override
+	public EdgeTraversal hasNot(String key, Object value) {
+		return has(key, Compare.NOT_EQUAL, value);
+	}
+
+	@Override
+	public EdgeTraversal interval(String key, Comparable startValue, Comparable endValue) {
+		return filters.tryInterval(isRefinable(), key, startValue, endValue) ? this : delegate().interval(key, startValue,
+				endValue);
+	}
+
+	@Override
+	public EdgeTraversal range(int low, int high) {
+		return filters.tryRange(isRefinable(), low, high) ? this : delegate().range(low, high);
+	}
+
+	@Override
+	public EdgeTraversal limit(int limit) {
+		return filters.tryLimit(isRefinable(), limit) ? this : delegate().limit(limit);
+	}
+
+}
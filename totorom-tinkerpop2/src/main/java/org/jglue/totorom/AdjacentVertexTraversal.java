@@ -0,0 +1,208 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom;
+
+import java.util.Iterator;
+
+import com.google.common.collect.Iterators;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.VertexQuery;
+
+/**
+ * A single hop from an element to its adjacent vertices. The common case of
+ * <code>out(labels).next()</code>, <code>toList()</code> or
+ * <code>count()</code> is answered directly from blueprints without building
+ * a gremlin pipeline.
+ * 
+ * A hop such as <code>outE(labels).has(key, value).inV()</code> is answered
+ * from the vertex query of the edge traversal it follows.
+ * 
+ * @author Bryn Cooke (http://jglue.org)
+ */
+class AdjacentVertexTraversal extends SimpleVertexTraversal {
+
+	private FramedElement start;
+	private Direction direction;
+	private String[] labels;
+	private AdjacentEdgeTraversal edges;
+	private int limit = -1;
+
+	AdjacentVertexTraversal(FramedGraph graph, FramedElement start, Direction direction, String... labels) {
+		super(graph);
+		this.start = start;
+		this.direction = direction;
+		this.labels = labels;
+	}
+
+	/**
+	 * @param edges
+	 *            The edges leading to the vertices. Each edge yields the
+	 *            vertex at the opposite end to the start vertex.
+	 */
+	AdjacentVertexTraversal(FramedGraph graph, AdjacentEdgeTraversal edges) {
+		super(graph);
+		this.edges = edges;
+	}
+
+	@Override
+	protected Iterator createIterator() {
+		if (edges != null) {
+			return query().vertices().iterator();
+		}
+		if (start instanceof FramedEdge) {
+			Edge edge = (Edge) start.element();
+			if (direction == Direction.BOTH) {
+				return Iterators.forArray(edge.getVertex(Direction.OUT), edge.getVertex(Direction.IN));
+			}
+			return Iterators.singletonIterator(edge.getVertex(direction));
+		}
+		if (limit != -1) {
+			return query().vertices().iterator();
+		}
+		return ((Vertex) start.element()).getVertices(direction, labels).iterator();
+	}
+
+	/**
+	 * @return The vertex query equivalent to this traversal from a vertex.
+	 */
+	private VertexQuery query() {
+		if (edges != null) {
+			return edges.query();
+		}
+		VertexQuery query = ((Vertex) start.element()).query().direction(direction).labels(labels);
+		if (limit != -1) {
+			query = query.limit(limit);
+		}
+		return query;
+	}
+
+	@Override
+	protected VertexTraversal createTraversal() {
+		if (edges != null) {
+			return edges.adjacentVertices();
+		}
+		if (start instanceof FramedEdge) {
+			EdgeTraversal traversal = new TraversalImpl(graph, start).castToEdges();
+			switch (direction) {
+			case IN:
+				return traversal.inV();
+			case OUT:
+				return traversal.outV();
+			default:
+				return traversal.bothV();
+			}
+		}
+		VertexTraversal traversal = new TraversalImpl(graph, start).castToVertices();
+		switch (direction) {
+		case IN:
+			traversal = traversal.in(labels);
+			break;
+		case OUT:
+			traversal = traversal.out(labels);
+			break;
+		default:
+			traversal = traversal.both(labels);
+		}
+		if (limit != -1) {
+			traversal = traversal.limit(limit);
+		}
+		return traversal;
+	}
+
+	/**
+	 * Further steps must see the start element so that path, back and loop
+	 * behave as they would on a full pipeline. The pipeline starts again from
+	 * the start element, so it cannot be built once iteration has started.
+	 */
+	@Override
+	protected VertexTraversal simpleDelegate() {
+		if (isIterating()) {
+			throw new IllegalStateException("Traversal cannot be modified after iteration has started");
+		}
+		return delegate();
+	}
+
+	/**
+	 * Counts using the vertex query so that graphs that store degree
+	 * information need not load the edges. Each edge leads to exactly one
+	 * vertex so the counts are the same.
+	 */
+	@Override
+	public long count() {
+		if (isRefinable() && !(start instanceof FramedEdge)) {
+			return query().count();
+		}
+		return super.count();
+	}
+
+	@Override
+	public VertexTraversal range(int low, int high) {
+		int limit = QueryFilters.rangeToLimit(low, high);
+		if (limit == -1) {
+			return delegate().range(low, high);
+		}
+		return limit(limit);
+	}
+
+	@Override
+	public VertexTraversal limit(int limit) {
+		if (!isRefinable() || limit < 1 || start instanceof FramedEdge || (edges != null && !edges.isRefinable())) {
+			return delegate().limit(limit);
+		}
+		if (edges != null) {
+			// One vertex is emitted per edge so the limit can be applied to
+			// the edges.
+			edges.limit(limit);
+		} else {
+			this.limit = this.limit == -1 ? limit : Math.min(this.limit, limit);
+		}
+		return this;
+	}
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import com.tinkerpop.blueprints.Element;
+
+/**
+ * Numeric aggregation of a property over the raw elements of a pipeline.
+ * Elements are not framed and values are accumulated in primitives. Elements
+ * that do not have a number for the key and nulls are skipped. Any other
+ * object is rejected.
+ *
+ * @author Bryn Cooke (http://jglue.org)
+ */
+final class Aggregations {
+
+	private Aggregations() {
+	}
+
+	private static Number number(Object element, String key) {
+		if (element == null) {
+			return null;
+		}
+		if (!(element instanceof Element)) {
+			throw new IllegalArgumentException("Numeric aggregation requires a traversal of vertices or edges but found "
+					+ element.getClass().getName());
+		}
+		Object value = ((Element) element).getProperty(key);
+		return value instanceof Number ? (Number) value : null;
+	}
+
+	static long sumLong(Iterator<?> elements, String key) {
+		long sum = 0;
+		while (elements.hasNext()) {
+			Number value = number(elements.next(), key);
+			if (value != null) {
+				sum += value.longValue();
+			}
+		}
+		return sum;
+	}
+
+	static double sumDouble(Iterator<?> elements, String key) {
+		double sum = 0;
+		while (elements.hasNext()) {
+			Number value = number(elements.next(), key);
+			if (value != null) {
+				sum += value.doubleValue();
+			}
+		}
+		return sum;
+	}
+
+	static NumericStats stats(Iterator<?> elements, String key) {
+		NumericStats stats = new NumericStats();
+		while (elements.hasNext()) {
+			Number value = number(elements.next(), key);
+			if (value != null) {
+				stats.accept(value.doubleValue());
+			}
+		}
+		return stats;
+	}
+
+	static long[] histogram(Iterator<?> elements, String key, double... bounds) {
+		for (int bound = 1; bound < bounds.length; bound++) {
+			if (!(bounds[bound - 1] < bounds[bound])) {
+				throw new IllegalArgumentException("Bucket bounds must be in increasing order");
+			}
+		}
+		long[] counts = new long[bounds.length + 1];
+		while (elements.hasNext()) {
+			Number value = number(elements.next(), key);
+			if (value != null) {
+				int bucket = Arrays.binarySearch(bounds, value.doubleValue());
+				// A value equal to a bound starts the bucket above it.
+				counts[bucket < 0 ? -bucket - 1 : bucket + 1]++;
+			}
+		}
+		return counts;
+	}
+}
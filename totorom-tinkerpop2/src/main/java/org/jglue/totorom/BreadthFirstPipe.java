@@ -0,0 +1,225 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.pipes.AbstractPipe;
+import com.tinkerpop.pipes.Pipe;
+
+/**
+ * Repeatedly applies a traversal breadth first. All the incoming elements
+ * form the first frontier, and each level is produced by running the
+ * traversal over the whole of the previous frontier. Elements that have
+ * already been reached are dropped, so each element is expanded and emitted at
+ * most once, at the level where it is first reached.
+ * <p>
+ * Large frontiers may be split in to chunks that are expanded in parallel on
+ * the graph's shared pool. The results of the chunks are merged in order so
+ * the output does not depend on the number of partitions. Frontiers are
+ * expanded on the calling thread while its transaction has buffered writes
+ * that have not been flushed, as other threads would not see them.
+ * <p>
+ * The path of an emitted element starts at that element.
+ * 
+ * @author Bryn Cooke (http://jglue.org)
+ */
+class BreadthFirstPipe extends AbstractPipe<Element, Element> {
+
+	private final FramedGraph graph;
+	private final TraversalFunction<TVertex, VertexTraversal<?, ?, ?>> traversal;
+	private final int depth;
+	private final boolean emitAll;
+	private final int partitions;
+	private VisitedSet visited;
+	private List<Element> frontier;
+	private int level;
+	private Iterator<Element> emitting = Collections.emptyIterator();
+
+	/**
+	 * @param graph
+	 *            The graph whose pool large frontiers are expanded on.
+	 * @param traversal
+	 *            Creates the traversal that is applied at each level.
+	 * @param depth
+	 *            The number of levels to expand.
+	 * @param emitAll
+	 *            Emit the elements of every level rather than only the last.
+	 * @param partitions
+	 *            The maximum number of chunks to expand at once.
+	 */
+	public BreadthFirstPipe(FramedGraph graph, TraversalFunction<TVertex, VertexTraversal<?, ?, ?>> traversal, int depth,
+			boolean emitAll, int partitions) {
+		if (partitions < 1) {
+			throw new IllegalArgumentException("Partitions must be at least 1");
+		}
+		this.graph = graph;
+		this.traversal = traversal;
+		this.depth = depth;
+		this.emitAll = emitAll;
+		this.partitions = partitions;
+	}
+
+	@Override
+	protected Element processNextStart() {
+		while (true) {
+			if (emitting.hasNext()) {
+				return emitting.next();
+			}
+			if (visited == null) {
+				visited = new VisitedSet();
+				frontier = new ArrayList<>();
+				while (starts.hasNext()) {
+					Element start = starts.next();
+					if (visited.add(start.getId())) {
+						frontier.add(start);
+					}
+				}
+			}
+			if (level >= depth || frontier.isEmpty()) {
+				throw new NoSuchElementException();
+			}
+			frontier = expand(frontier);
+			level++;
+			if (emitAll || level == depth) {
+				emitting = frontier.iterator();
+			}
+		}
+	}
+
+	private List<Element> expand(List<Element> frontier) {
+		List<List<Element>> reached = new ArrayList<>();
+		int chunkSize = ParallelTraversal.DEFAULT_CHUNK_SIZE;
+		if (partitions == 1 || frontier.size() <= chunkSize || graph.hasPendingWrites()) {
+			reached.add(expandChunk(frontier));
+		} else {
+			// The visited set is only read while the chunks are running and
+			// only updated once they have all finished.
+			ForkJoinPool pool = graph.getParallelPool();
+			Deque<ForkJoinTask<List<Element>>> running = new ArrayDeque<>();
+			try {
+				for (int from = 0; from < frontier.size(); from += chunkSize) {
+					final List<Element> chunk = frontier.subList(from, Math.min(from + chunkSize, frontier.size()));
+					running.add(pool.submit(new Callable<List<Element>>() {
+
+						@Override
+						public List<Element> call() {
+							return expandChunk(chunk);
+						}
+					}));
+					if (running.size() >= partitions) {
+						reached.add(running.poll().join());
+					}
+				}
+				while (!running.isEmpty()) {
+					reached.add(running.poll().join());
+				}
+			} finally {
+				// The pool is shared, so only abandon this level's chunks.
+				for (ForkJoinTask<List<Element>> task : running) {
+					task.cancel(true);
+				}
+			}
+		}
+
+		List<Element> next = new ArrayList<>();
+		for (List<Element> elements : reached) {
+			for (Element element : elements) {
+				if (visited.add(element.getId())) {
+					next.add(element);
+				}
+			}
+		}
+		return next;
+	}
+
+	private List<Element> expandChunk(List<Element> chunk) {
+		@SuppressWarnings("unchecked")
+		Pipe<Element, ?> pipeline = TraversalBase.pipelineOf(traversal.compute(new TVertex()));
+		pipeline.setStarts(chunk.iterator());
+		VisitedSet local = new VisitedSet();
+		List<Element> reached = new ArrayList<>();
+		while (pipeline.hasNext()) {
+			Element element = (Element) pipeline.next();
+			Object id = element.getId();
+			if (!visited.contains(id) && local.add(id)) {
+				reached.add(element);
+			}
+		}
+		return reached;
+	}
+
+	@Override
+	public List<Object> getCurrentPath() {
+		if (pathEnabled) {
+			List<Object> path = new ArrayList<>(1);
+			path.add(currentEnd);
+			return path;
+		} else {
+			throw new RuntimeException(NO_PATH_MESSAGE);
+		}
+	}
+
+	@Override
+	public void reset() {
+		visited = null;
+		frontier = null;
+		level = 0;
+		emitting = Collections.emptyIterator();
+		super.reset();
+	}
+}
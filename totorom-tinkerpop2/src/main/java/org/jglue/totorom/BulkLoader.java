@@ -0,0 +1,481 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * Loads large numbers of vertices and edges into a framed graph.
+ * <p>
+ * Vertices and edges are described by a caller supplied key rather than by
+ * frames. Descriptors are buffered and written in batches directly to the
+ * underlying graph, committing once per batch if the graph is transactional.
+ * Edge endpoints are resolved from the vertex keys through an id mapping
+ * cache, so the vertices of an edge must have been added before the edge,
+ * although not necessarily in the same batch.
+ * <p>
+ * No frames are created unless the frame type overrides
+ * {@link FramedElement#init()}, in which case a single frame per type is
+ * rebound to each new element so that the initialization still runs. The
+ * {@link TypeResolver} is always given the chance to store type information.
+ * <p>
+ * Close the loader to write and commit the final batch.
+ * 
+ * <pre>
+ * try (BulkLoader loader = new BulkLoader(graph, 10000)) {
+ * 	loader.addVertex(&quot;a&quot;, Person.class);
+ * 	loader.addVertex(&quot;b&quot;, Person.class);
+ * 	loader.addEdge(&quot;a&quot;, &quot;knows&quot;, &quot;b&quot;, Knows.class);
+ * }
+ * </pre>
+ * 
+ * @author Bryn Cooke (http://jglue.org)
+ */
+public class BulkLoader implements AutoCloseable {
+
+	/**
+	 * Describes a vertex to be loaded.
+	 */
+	public static class VertexDescriptor {
+		private Object key;
+		private Class<? extends FramedVertex> kind;
+		private Map<String, ?> properties;
+
+		/**
+		 * @param key
+		 *            The key that edges use to refer to this vertex.
+		 * @param kind
+		 *            The kind of frame.
+		 * @param properties
+		 *            The properties to set on the vertex, may be null.
+		 */
+		public VertexDescriptor(Object key, Class<? extends FramedVertex> kind, Map<String, ?> properties) {
+			this.key = key;
+			this.kind = kind;
+			this.properties = properties;
+		}
+	}
+
+	/**
+	 * Describes an edge to be loaded.
+	 */
+	public static class EdgeDescriptor {
+		private Object outKey;
+		private String label;
+		private Object inKey;
+		private Class<? extends FramedEdge> kind;
+		private Map<String, ?> properties;
+
+		/**
+		 * @param outKey
+		 *            The key of the out vertex.
+		 * @param label
+		 *            The label of the edge.
+		 * @param inKey
+		 *            The key of the in vertex.
+		 * @param kind
+		 *            The kind of frame.
+		 * @param properties
+		 *            The properties to set on the edge, may be null.
+		 */
+		public EdgeDescriptor(Object outKey, String label, Object inKey, Class<? extends FramedEdge> kind,
+				Map<String, ?> properties) {
+			this.outKey = outKey;
+			this.label = label;
+			this.inKey = inKey;
+			this.kind = kind;
+			this.properties = properties;
+		}
+	}
+
+	/**
+	 * The number of mutations per batch when none is specified.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 10000;
+
+	private static final ClassValue<Boolean> INITIALIZES = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			for (Class<?> c = type; c != null && c != FramedElement.class; c = c.getSuperclass()) {
+				try {
+					c.getDeclaredMethod("init");
+					return true;
+				} catch (NoSuchMethodException e) {
+					// Keep looking up the hierarchy.
+				}
+			}
+			return false;
+		}
+	};
+
+	private FramedGraph graph;
+	private int batchSize;
+	private List<VertexDescriptor> pendingVertices = new ArrayList<>();
+	private List<EdgeDescriptor> pendingEdges = new ArrayList<>();
+	private Map<Object, Object> ids = new HashMap<>();
+	private Map<Object, Vertex> batchVertices = new HashMap<>();
+	private Map<Class<?>, FramedElement> initFrames = new HashMap<>();
+	private long vertexCount;
+	private long edgeCount;
+	private long commitCount;
+	private long startTime = System.nanoTime();
+	private boolean closed;
+	private RuntimeException closeFailure;
+
+	/**
+	 * Create a loader that commits every {@link #DEFAULT_BATCH_SIZE}
+	 * mutations.
+	 * 
+	 * @param graph
+	 *            The graph to load into.
+	 */
+	public BulkLoader(FramedGraph graph) {
+		this(graph, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * @param graph
+	 *            The graph to load into.
+	 * @param batchSize
+	 *            The number of vertices and edges to write per commit.
+	 */
+	public BulkLoader(FramedGraph graph, int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1");
+		}
+		this.graph = graph;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Add a vertex.
+	 * 
+	 * @param key
+	 *            The key that edges use to refer to this vertex.
+	 * @param kind
+	 *            The kind of frame.
+	 */
+	public void addVertex(Object key, Class<? extends FramedVertex> kind) {
+		addVertex(key, kind, null);
+	}
+
+	/**
+	 * Add a vertex.
+	 * 
+	 * @param key
+	 *            The key that edges use to refer to this vertex.
+	 * @param kind
+	 *            The kind of frame.
+	 * @param properties
+	 *            The properties to set on the vertex, may be null.
+	 */
+	public void addVertex(Object key, Class<? extends FramedVertex> kind, Map<String, ?> properties) {
+		add(new VertexDescriptor(key, kind, properties));
+	}
+
+	/**
+	 * Add an edge.
+	 * 
+	 * @param outKey
+	 *            The key of the out vertex.
+	 * @param label
+	 *            The label of the edge.
+	 * @param inKey
+	 *            The key of the in vertex.
+	 * @param kind
+	 *            The kind of frame.
+	 */
+	public void addEdge(Object outKey, String label, Object inKey, Class<? extends FramedEdge> kind) {
+		addEdge(outKey, label, inKey, kind, null);
+	}
+
+	/**
+	 * Add an edge.
+	 * 
+	 * @param outKey
+	 *            The key of the out vertex.
+	 * @param label
+	 *            The label of the edge.
+	 * @param inKey
+	 *            The key of the in vertex.
+	 * @param kind
+	 *            The kind of frame.
+	 * @param properties
+	 *            The properties to set on the edge, may be null.
+	 */
+	public void addEdge(Object outKey, String label, Object inKey, Class<? extends FramedEdge> kind,
+			Map<String, ?> properties) {
+		add(new EdgeDescriptor(outKey, label, inKey, kind, properties));
+	}
+
+	/**
+	 * Add a vertex.
+	 * 
+	 * @param vertex
+	 *            The vertex to add.
+	 */
+	public void add(VertexDescriptor vertex) {
+		checkOpen();
+		pendingVertices.add(vertex);
+		flushIfFull();
+	}
+
+	/**
+	 * Add an edge.
+	 * 
+	 * @param edge
+	 *            The edge to add.
+	 */
+	public void add(EdgeDescriptor edge) {
+		checkOpen();
+		pendingEdges.add(edge);
+		flushIfFull();
+	}
+
+	/**
+	 * Add all the vertices.
+	 * 
+	 * @param vertices
+	 *            The vertices to add.
+	 */
+	public void loadVertices(Iterable<? extends VertexDescriptor> vertices) {
+		for (VertexDescriptor vertex : vertices) {
+			add(vertex);
+		}
+	}
+
+	/**
+	 * Add all the edges.
+	 * 
+	 * @param edges
+	 *            The edges to add.
+	 */
+	public void loadEdges(Iterable<? extends EdgeDescriptor> edges) {
+		for (EdgeDescriptor edge : edges) {
+			add(edge);
+		}
+	}
+
+	/**
+	 * Write the buffered vertices and edges and commit. If writing fails the
+	 * batch is rolled back, discarded and the exception is rethrown. On a graph
+	 * that is not transactional the elements written before the failure stay
+	 * in the graph, but their keys are not recorded so later edges cannot
+	 * refer to them.
+	 */
+	public void flush() {
+		if (pendingVertices.isEmpty() && pendingEdges.isEmpty()) {
+			return;
+		}
+		Map<Object, Object> batchIds = new HashMap<>();
+		Transaction tx = graph.tx();
+		try {
+			for (VertexDescriptor descriptor : pendingVertices) {
+				Vertex vertex = graph.delegate.addVertex(null);
+				setProperties(vertex, descriptor.properties);
+				init(vertex, descriptor.kind);
+				batchVertices.put(descriptor.key, vertex);
+				batchIds.put(descriptor.key, vertex.getId());
+			}
+			for (EdgeDescriptor descriptor : pendingEdges) {
+				Edge edge = graph.delegate.addEdge(null, vertex(descriptor.outKey), vertex(descriptor.inKey),
+						descriptor.label);
+				setProperties(edge, descriptor.properties);
+				init(edge, descriptor.kind);
+			}
+			tx.commit();
+			ids.putAll(batchIds);
+			vertexCount += pendingVertices.size();
+			edgeCount += pendingEdges.size();
+			commitCount++;
+		} catch (RuntimeException e) {
+			tx.rollback();
+			throw e;
+		} finally {
+			batchVertices.clear();
+			pendingVertices.clear();
+			pendingEdges.clear();
+		}
+	}
+
+	/**
+	 * Write and commit the final batch. The loader is closed even if the batch
+	 * fails, and closing it again rethrows that failure so that the lost batch
+	 * is not hidden.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			if (closeFailure != null) {
+				throw new IllegalStateException("The final batch failed to load", closeFailure);
+			}
+			return;
+		}
+		try {
+			flush();
+		} catch (RuntimeException e) {
+			closeFailure = e;
+			throw e;
+		} finally {
+			for (FramedElement frame : initFrames.values()) {
+				frame.init(null, null);
+			}
+			initFrames.clear();
+			closed = true;
+		}
+	}
+
+	/**
+	 * @return The number of vertices committed.
+	 */
+	public long getVertexCount() {
+		return vertexCount;
+	}
+
+	/**
+	 * @return The number of edges committed.
+	 */
+	public long getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * @return The number of batches committed.
+	 */
+	public long getCommitCount() {
+		return commitCount;
+	}
+
+	/**
+	 * @return The time since the loader was created in milliseconds.
+	 */
+	public long getElapsedMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+	}
+
+	/**
+	 * @return The number of vertices and edges committed per second since the
+	 *         loader was created.
+	 */
+	public double getElementsPerSecond() {
+		long elapsed = System.nanoTime() - startTime;
+		if (elapsed == 0) {
+			return 0;
+		}
+		return (vertexCount + edgeCount) / (elapsed / (double) TimeUnit.SECONDS.toNanos(1));
+	}
+
+	/**
+	 * @return The ids of the vertices loaded so far keyed by vertex key.
+	 */
+	public Map<Object, Object> getVertexIds() {
+		return Collections.unmodifiableMap(ids);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d vertices, %d edges, %d commits in %dms (%.0f elements/s)", vertexCount, edgeCount,
+				commitCount, getElapsedMillis(), getElementsPerSecond());
+	}
+
+	private void checkOpen() {
+		if (closed) {
+			throw new IllegalStateException("The loader has been closed");
+		}
+	}
+
+	private void flushIfFull() {
+		if (pendingVertices.size() + pendingEdges.size() >= batchSize) {
+			flush();
+		}
+	}
+
+	private Vertex vertex(Object key) {
+		Vertex vertex = batchVertices.get(key);
+		if (vertex == null) {
+			Object id = ids.get(key);
+			if (id == null) {
+				throw new IllegalStateException("No vertex has been added with key " + key);
+			}
+			vertex = graph.delegate.getVertex(id);
+			batchVertices.put(key, vertex);
+		}
+		return vertex;
+	}
+
+	private void setProperties(Element element, Map<String, ?> properties) {
+		if (properties != null) {
+			for (Map.Entry<String, ?> property : properties.entrySet()) {
+				element.setProperty(property.getKey(), property.getValue());
+			}
+		}
+	}
+
+	private <T extends FramedElement> void init(Element element, Class<T> kind) {
+		graph.initNewElement(element, kind);
+		if (INITIALIZES.get(kind)) {
+			Class<T> frameType = graph.resolveFrameType(element, kind);
+			FramedElement frame = initFrames.get(frameType);
+			if (frame == null) {
+				frame = graph.createReusableFrame(element, frameType);
+				initFrames.put(frameType, frame);
+			} else {
+				frame.init(graph, element);
+			}
+			frame.init();
+		}
+	}
+}
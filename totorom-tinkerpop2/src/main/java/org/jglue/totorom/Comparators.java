@@ -74,7 +74,10 @@ public class Comparators {
 	}
 
 	/**
-	 * Compare by id parsed as a long (Useful for tinkergraph)
+	 * Compare by id parsed as a long (Useful for tinkergraph). The ids are
+	 * parsed on every comparison, so to sort a traversal prefer
+	 * {@link Traversal#orderBy(TraversalFunction)} with a function that
+	 * parses the id once.
 	 * 
 	 * @return
 	 */
@@ -216,17 +216,41 @@ public interface EdgeTraversal<Cap, SideEffect, Mark> extends Traversal<TEdge, C
 	public <T extends FramedEdge> Iterable<T> frame(Class<T> kind);
 
 	/**
-	 * Return a list of all the objects in the pipeline.
+	 * Iterate the edges without framing them, so that they can be framed
+	 * later, for instance on another thread.
+	 * 
+	 * @param kind
+	 *            The kind of framed elements to return.
+	 * @return The unframed edges.
+	 */
+	public <T extends FramedEdge> UnframedResults<T> unframed(Class<T> kind);
+
+	/**
+	 * Return a list of all the objects in the pipeline. Each element is framed
+	 * once when the list is created.
 	 * 
 	 * @param kind
 	 *            The kind of framed elements to return.
 	 * @return a list of all the objects
 	 */
 	public <T extends FramedEdge> List<T> toList(Class<T> kind);
+
+	/**
+	 * Return a list of all the objects in the pipeline. Each element is framed
+	 * once when the list is created.
+	 * 
+	 * @param kind
+	 *            The kind of framed elements to return.
+	 * @param expectedSize
+	 *            The expected number of objects, used to presize the list.
+	 * @return a list of all the objects
+	 */
+	public <T extends FramedEdge> List<T> toList(Class<T> kind, int expectedSize);
 	
 	
 	/**
-	 * Return a set of all the objects in the pipeline.
+	 * Return a set of all the objects in the pipeline. Elements are
+	 * deduplicated before they are framed.
 	 * 
 	 * @param kind
 	 *            The kind of framed elements to return.
@@ -395,6 +419,13 @@ public interface EdgeTraversal<Cap, SideEffect, Mark> extends Traversal<TEdge, C
 	@Override
 	public abstract EdgeTraversal<?, ?, Mark> order(Comparator<TEdge> compareFunction);
 
+	@Override
+	public abstract EdgeTraversal<?, ?, Mark> orderBy(TraversalFunction<TEdge, ? extends Comparable<?>> keyFunction);
+
+	@Override
+	public abstract EdgeTraversal<?, ?, Mark> orderBy(TraversalFunction<TEdge, ? extends Comparable<?>> keyFunction,
+			TransformPipe.Order order);
+
 	@Override
 	public abstract EdgeTraversal<?, ?, Mark> as(String name);
 
@@ -58,7 +58,6 @@ import com.google.common.collect.Collections2;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Predicate;
@@ -263,12 +262,7 @@ abstract class EdgeTraversalImpl extends TraversalBase implements EdgeTraversal
 
 	@Override
 	public List next(int amount, final Class kind) {
-		return Lists.transform(pipeline().next(amount), new Function() {
-
-			public Object apply(Object e) {
-				return graph().frameElement((Element) e, kind);
-			}
-		});
+		return graph().frameList(Iterators.limit(pipeline(), amount), kind, Math.min(amount, PRESIZE_LIMIT));
 	}
 
 	@Override
@@ -281,19 +275,25 @@ abstract class EdgeTraversalImpl extends TraversalBase implements EdgeTraversal
 		});
 	}
 
+	@SuppressWarnings({ "rawtypes", "unchecked" })
 	@Override
-	public List<T> toList(final Class kind) {
-		return Lists.transform(pipeline().toList(), new Function() {
+	public UnframedResults<Object> unframed(Class kind) {
+		return new UnframedResults<Object>(graph(), pipeline(), kind);
+	}
 
-			public Object apply(Object e) {
-				return graph().frameElement((Element) e, kind);
-			}
-		});
+	@Override
+	public List<T> toList(Class kind) {
+		return graph().frameList(pipeline(), kind);
+	}
+
+	@Override
+	public List<T> toList(Class kind, int expectedSize) {
+		return graph().frameList(pipeline(), kind, expectedSize);
 	}
 	
 	@Override
-	public Set<T> toSet(final Class kind) {
-		return Sets.newHashSet(toList(kind));
+	public Set<T> toSet(Class kind) {
+		return graph().frameSet(pipeline(), kind);
 	}
 
 	@Override
@@ -338,7 +338,7 @@ abstract class EdgeTraversalImpl extends TraversalBase implements EdgeTraversal
 
 			@Override
 			public Pipe apply(TraversalFunction input) {
-				return ((TraversalBase) input.compute(new TEdge())).pipeline();
+				return TraversalBase.pipelineOf(input.compute(new TEdge()));
 			}
 		});
 		pipeline().and(extractedPipes.toArray(new Pipe[extractedPipes.size()]));
@@ -351,7 +351,7 @@ abstract class EdgeTraversalImpl extends TraversalBase implements EdgeTraversal
 
 			@Override
 			public Pipe apply(TraversalFunction input) {
-				return ((TraversalBase) input.compute(new TEdge())).pipeline();
+				return TraversalBase.pipelineOf(input.compute(new TEdge()));
 			}
 		});
 		pipeline().or(extractedPipes.toArray(new Pipe[extractedPipes.size()]));
@@ -405,6 +405,16 @@ abstract class EdgeTraversalImpl extends TraversalBase implements EdgeTraversal
 		return (EdgeTraversal) super.order(compareFunction);
 	}
 
+	@Override
+	public EdgeTraversal orderBy(TraversalFunction keyFunction) {
+		return (EdgeTraversal) super.orderBy(keyFunction);
+	}
+
+	@Override
+	public EdgeTraversal orderBy(TraversalFunction keyFunction, Order order) {
+		return (EdgeTraversal) super.orderBy(keyFunction, order);
+	}
+
 	@Override
 	public EdgeTraversal order(T order) {
 		return (EdgeTraversal) super.order(order);
@@ -509,7 +519,7 @@ abstract class EdgeTraversalImpl extends TraversalBase implements EdgeTraversal
 
 					@Override
 					public Pipe apply(TraversalFunction input) {
-						return ((TraversalBase) input.compute(new TEdge())).pipeline();
+						return TraversalBase.pipelineOf(input.compute(new TEdge()));
 					}
 				});
 		pipeline().copySplit(extractedPipes.toArray(new Pipe[extractedPipes.size()]));
@@ -0,0 +1,209 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+
+/**
+ * Looks up vertices or edges by id in batches. Each id is fetched at most
+ * once, including ids that are not found, and the elements are returned in
+ * the order of the ids. Ids that are not found are returned as
+ * <code>null</code> as they would be by the graph.
+ * <p>
+ * If an executor is supplied then every batch is submitted up front and the
+ * batches are fetched in parallel, otherwise each batch is fetched as it is
+ * reached.
+ * 
+ * @author Bryn Cooke (http://jglue.org)
+ */
+class ElementLookup implements Iterator<Element> {
+
+	/**
+	 * The number of ids per batch when none is specified.
+	 */
+	static final int DEFAULT_BATCH_SIZE = 100;
+
+	private final Graph graph;
+	private final boolean vertices;
+	private final Iterator<?> ids;
+	private final int batchSize;
+	private final Executor executor;
+
+	private final Map<Object, Element> found = new HashMap<>();
+	private final Set<Object> requested = new HashSet<>();
+	private final Deque<Object[]> batches = new ArrayDeque<>();
+	private final Deque<Future<Map<Object, Element>>> fetches = new ArrayDeque<>();
+	private Object[] batch;
+	private int position;
+
+	/**
+	 * @param graph
+	 *            The graph to look up in.
+	 * @param vertices
+	 *            True to look up vertices, false to look up edges.
+	 * @param ids
+	 *            The ids to look up.
+	 * @param batchSize
+	 *            The number of ids per batch.
+	 * @param executor
+	 *            The executor to fetch batches on, or <code>null</code> to
+	 *            fetch them on the calling thread.
+	 */
+	ElementLookup(Graph graph, boolean vertices, Iterator<?> ids, int batchSize, Executor executor) {
+		this.graph = graph;
+		this.vertices = vertices;
+		this.ids = ids;
+		this.batchSize = batchSize;
+		this.executor = executor;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (batch != null && position < batch.length) {
+			return true;
+		}
+		if (executor != null && fetches.isEmpty()) {
+			// Submit every batch so that they are all fetched in parallel.
+			while (ids.hasNext()) {
+				submit(readBatch());
+			}
+		}
+		if (fetches.isEmpty()) {
+			if (!ids.hasNext()) {
+				return false;
+			}
+			submit(readBatch());
+		}
+		batch = batches.poll();
+		position = 0;
+		try {
+			found.putAll(fetches.poll().get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			// Rethrow the graph's own exceptions as the lookup loop would.
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+		return true;
+	}
+
+	@Override
+	public Element next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return found.get(batch[position++]);
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	private Object[] readBatch() {
+		List<Object> read = new ArrayList<>(batchSize);
+		while (read.size() < batchSize && ids.hasNext()) {
+			read.add(ids.next());
+		}
+		return read.toArray();
+	}
+
+	/**
+	 * Schedule the fetch of the ids in a batch that have not already been
+	 * requested by an earlier batch.
+	 */
+	private void submit(Object[] batch) {
+		final List<Object> missing = new ArrayList<>(batch.length);
+		for (Object id : batch) {
+			if (requested.add(id)) {
+				missing.add(id);
+			}
+		}
+		FutureTask<Map<Object, Element>> fetch = new FutureTask<>(new Callable<Map<Object, Element>>() {
+
+			@Override
+			public Map<Object, Element> call() {
+				Map<Object, Element> fetched = new HashMap<>();
+				for (Object id : missing) {
+					fetched.put(id, vertices ? graph.getVertex(id) : graph.getEdge(id));
+				}
+				return fetched;
+			}
+		});
+		batches.add(batch);
+		fetches.add(fetch);
+		if (executor != null) {
+			executor.execute(fetch);
+		} else {
+			fetch.run();
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.tinkerpop.blueprints.Element;
+
+/**
+ * Frames elements by rebinding a single frame instance per resolved frame
+ * type rather than allocating a new frame for every element.
+ * 
+ * @see Traversal#forEachFramed(Class, SideEffectFunction)
+ * @author Bryn Cooke (http://jglue.org)
+ */
+class FlyweightFramer<T extends FramedElement> {
+	private FramedGraph graph;
+	private Class<T> kind;
+	private Map<Class<?>, FramedElement> frames = new HashMap<>(4);
+
+	public FlyweightFramer(FramedGraph graph, Class<T> kind) {
+		this.graph = graph;
+		this.kind = kind;
+	}
+
+	@SuppressWarnings("unchecked")
+	T frame(Object o) {
+		Element element = (Element) o;
+		Class<T> frameType = graph.resolveFrameType(element, kind);
+		FramedElement frame = frames.get(frameType);
+		if (frame == null) {
+			frame = graph.createReusableFrame(element, frameType);
+			frames.put(frameType, frame);
+		} else {
+			frame.init(graph, element);
+		}
+		return (T) frame;
+	}
+
+	/**
+	 * Detach the frames from their elements so that any frame that escaped the
+	 * callback fails fast rather than silently reading another element.
+	 */
+	void release() {
+		for (FramedElement frame : frames.values()) {
+			frame.init(null, ReleasedElement.INSTANCE);
+		}
+		frames.clear();
+	}
+
+	/**
+	 * Call a function with a rebound frame for each element.
+	 * 
+	 * @param graph
+	 *            The graph to frame the elements with.
+	 * @param elements
+	 *            The raw elements.
+	 * @param kind
+	 *            The kind of frame.
+	 * @param function
+	 *            The function to call for each element.
+	 */
+	static <T extends FramedElement> void forEach(FramedGraph graph, Iterator<?> elements, Class<T> kind,
+			SideEffectFunction<? super T> function) {
+		FlyweightFramer<T> framer = new FlyweightFramer<>(graph, kind);
+		try {
+			while (elements.hasNext()) {
+				function.execute(framer.frame(elements.next()));
+			}
+		} finally {
+			framer.release();
+		}
+	}
+}
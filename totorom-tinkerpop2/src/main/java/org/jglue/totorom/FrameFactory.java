@@ -46,6 +46,11 @@
  */
 package org.jglue.totorom;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+
 import com.tinkerpop.blueprints.Element;
 
 /**
@@ -59,16 +64,39 @@ public interface FrameFactory {
 	public <T extends FramedElement> T create(Element e, Class<T> kind);
 
 	/**
-	 * Creates the frame using reflection.
+	 * Creates the frame using the no-arg constructor of the frame class. The
+	 * constructor is looked up once per class and cached as a method handle,
+	 * so there is no reflective access check per frame.
 	 */
 	public static FrameFactory Default = new FrameFactory() {
+
+		private final ClassValue<MethodHandle> constructors = new ClassValue<MethodHandle>() {
+			@Override
+			protected MethodHandle computeValue(Class<?> kind) {
+				try {
+					Constructor<?> constructor = kind.getDeclaredConstructor();
+					constructor.setAccessible(true);
+					return MethodHandles.lookup().unreflectConstructor(constructor)
+							.asType(MethodType.methodType(Object.class));
+				} catch (NoSuchMethodException e) {
+					throw new RuntimeException(e);
+				} catch (IllegalAccessException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+
+		@SuppressWarnings("unchecked")
 		@Override
 		public <T extends FramedElement> T create(Element element, Class<T> kind) {
+			MethodHandle constructor = constructors.get(kind);
 			try {
-				return kind.newInstance();
-			} catch (InstantiationException e) {
-				throw new RuntimeException(e);
-			} catch (IllegalAccessException e) {
+				return (T) (Object) constructor.invokeExact();
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Error e) {
+				throw e;
+			} catch (Throwable e) {
 				throw new RuntimeException(e);
 			}
 		}
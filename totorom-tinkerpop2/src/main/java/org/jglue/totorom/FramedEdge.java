@@ -49,6 +49,7 @@ package org.jglue.totorom;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
+import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 
 /**
@@ -73,21 +74,21 @@ public abstract class FramedEdge extends FramedElement {
 	 * @return The in vertex for this edge.
 	 */
 	protected VertexTraversal<?, ?, ?> inV() {
-		return new TraversalImpl(graph(), this).castToEdges().inV();
+		return new AdjacentVertexTraversal(graph(), this, Direction.IN);
 	}
 
 	/**
 	 * @return The out vertex of this edge.
 	 */
 	protected VertexTraversal<?, ?, ?> outV() {
-		return new TraversalImpl(graph(), this).castToEdges().outV();
+		return new AdjacentVertexTraversal(graph(), this, Direction.OUT);
 	}
 
 	/**
 	 * @return The vertices for this edge.
 	 */
 	protected VertexTraversal<?, ?, ?> bothV() {
-		return new TraversalImpl(graph(), this).castToEdges().bothV();
+		return new AdjacentVertexTraversal(graph(), this, Direction.BOTH);
 	}
 
 	/**
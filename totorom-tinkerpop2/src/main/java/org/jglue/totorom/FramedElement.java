@@ -46,6 +46,8 @@
  */
 package org.jglue.totorom;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 import com.tinkerpop.blueprints.Element;
@@ -58,12 +60,38 @@ import com.tinkerpop.blueprints.Element;
 
 public abstract class FramedElement {
 
+	/**
+	 * Marks a property that is known to be absent in the property cache.
+	 */
+	private static final Object ABSENT = new Object();
+
 	private Element element;
 	private FramedGraph graph;
+	private Map<String, Object> properties;
+	private Map<String, Object> decodedProperties;
 
 	protected void init(FramedGraph graph, Element element) {
 		this.graph = graph;
 		this.element = element;
+		if (graph != null && graph.isPropertyCacheEnabled()) {
+			cacheProperties();
+		} else {
+			properties = null;
+			decodedProperties = null;
+		}
+	}
+
+	/**
+	 * Remember property values read through this frame until they are set
+	 * through this frame or the frame is bound to another element. Changes
+	 * made to the element by other means will not be seen. Frames may call
+	 * this from an overridden {@link #init(FramedGraph, Element)} to always
+	 * cache, or it can be enabled for all frames with
+	 * {@link Transaction#enablePropertyCache()}.
+	 */
+	protected void cacheProperties() {
+		properties = new HashMap<>();
+		decodedProperties = null;
 	}
 
 	protected void init() {
@@ -81,6 +109,10 @@ public abstract class FramedElement {
 	 * @return The property keys of this element.
 	 */
 	protected Set<String> getPropertyKeys() {
+		WriteBuffer writes = writeBuffer();
+		if (writes != null) {
+			return writes.getPropertyKeys(element);
+		}
 		return element.getPropertyKeys();
 	}
 
@@ -88,6 +120,18 @@ public abstract class FramedElement {
 	 * Remove this element from the graph.
 	 */
 	protected void remove() {
+		if (properties != null) {
+			properties.clear();
+			decodedProperties = null;
+		}
+		IdentityMap identityMap = graph == null ? null : graph.getIdentityMap();
+		if (identityMap != null) {
+			identityMap.remove(element);
+		}
+		WriteBuffer writes = writeBuffer();
+		if (writes != null) {
+			writes.discard(element);
+		}
 		element.remove();
 	}
 
@@ -112,10 +156,38 @@ public abstract class FramedElement {
 	 *            The name of the property.
 	 * @return the value of the property or null if none was present.
 	 */
+	@SuppressWarnings("unchecked")
 	protected <T> T getProperty(String name) {
+		if (properties == null) {
+			return (T) readProperty(name);
+		}
+		Object value = properties.get(name);
+		if (value == null) {
+			value = readProperty(name);
+			properties.put(name, value == null ? ABSENT : value);
+		}
+		return value == ABSENT ? null : (T) value;
+	}
+
+	/**
+	 * Read a property, taking in to account writes that have not yet been
+	 * flushed to the graph.
+	 */
+	private Object readProperty(String name) {
+		WriteBuffer writes = writeBuffer();
+		if (writes != null) {
+			Object pending = writes.get(element, name);
+			if (pending != WriteBuffer.NOT_PENDING) {
+				return pending;
+			}
+		}
 		return element.getProperty(name);
 	}
 
+	private WriteBuffer writeBuffer() {
+		return graph == null ? null : graph.getWriteBuffer();
+	}
+
 	/**
 	 * Return a property value.
 	 * 
@@ -128,10 +200,26 @@ public abstract class FramedElement {
 	 */
 	protected <T> T getProperty(String name, Class<T> type) {
 		if (type.isEnum()) {
-			return (T) Enum.valueOf((Class<Enum>) type, (String) element.getProperty(name));
+			if (properties == null) {
+				return type.cast(decodeEnum(type, readProperty(name)));
+			}
+			if (decodedProperties == null) {
+				decodedProperties = new HashMap<>();
+			}
+			Object decoded = decodedProperties.get(name);
+			if (!type.isInstance(decoded)) {
+				decoded = decodeEnum(type, getProperty(name));
+				decodedProperties.put(name, decoded);
+			}
+			return type.cast(decoded);
 		}
 
-		return element.getProperty(name);
+		return getProperty(name);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Object decodeEnum(Class<?> type, Object name) {
+		return Enum.valueOf((Class<Enum>) type, (String) name);
 	}
 
 	/**
@@ -143,7 +231,16 @@ public abstract class FramedElement {
 	 *            The value of the property.
 	 */
 	protected void setProperty(String name, Object value) {
-		if (value == null) {
+		if (properties != null) {
+			properties.remove(name);
+			if (decodedProperties != null) {
+				decodedProperties.remove(name);
+			}
+		}
+		WriteBuffer writes = writeBuffer();
+		if (writes != null) {
+			writes.set(element, name, value instanceof Enum ? value.toString() : value);
+		} else if (value == null) {
 			element.removeProperty(name);
 		} else {
 			if (value instanceof Enum) {
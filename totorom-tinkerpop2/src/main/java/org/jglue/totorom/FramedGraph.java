@@ -47,17 +47,20 @@
 package org.jglue.totorom;
 
 import java.io.Closeable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Iterators;
-import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.TransactionalGraph;
-import com.tinkerpop.blueprints.Vertex;
-import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
 
 /**
  * The primary class for framing your blueprints graphs.
@@ -70,6 +73,12 @@ public class FramedGraph {
 
 	private TypeResolver resolver;
 	private FrameFactory builder;
+	private int idBatchSize = ElementLookup.DEFAULT_BATCH_SIZE;
+	private Executor idLookupExecutor;
+	private ForkJoinPool parallelPool;
+	private final ThreadLocal<IdentityMap> identityMap = new ThreadLocal<>();
+	private final ThreadLocal<Boolean> propertyCache = new ThreadLocal<>();
+	private final ThreadLocal<WriteBuffer> writeBuffer = new ThreadLocal<>();
 
 	/**
 	 * Construct a framed graph.
@@ -97,14 +106,119 @@ public class FramedGraph {
 		this(delegate, FrameFactory.Default, TypeResolver.Untyped);
 	}
 
+	/**
+	 * Configure how {@link #v(Object...)} and {@link #e(Object...)} look up
+	 * elements. Ids are de-duplicated and looked up in batches, and the
+	 * results keep the order of the ids. If an executor is supplied then the
+	 * batches are fetched in parallel on it, which requires that the
+	 * underlying graph supports reads from multiple threads.
+	 * 
+	 * @param batchSize
+	 *            The number of ids per batch.
+	 * @param executor
+	 *            The executor to fetch batches on, or <code>null</code> to
+	 *            fetch them on the calling thread.
+	 */
+	public void setIdLookup(int batchSize, Executor executor) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1");
+		}
+		this.idBatchSize = batchSize;
+		this.idLookupExecutor = executor;
+	}
+
+	/**
+	 * Set the pool that parallel traversals are evaluated on. If none is set
+	 * then a pool with one thread per processor is created when it is first
+	 * needed and shared by all parallel traversals on this graph.
+	 * 
+	 * @param pool
+	 *            The pool to evaluate parallel traversals on.
+	 */
+	public synchronized void setParallelPool(ForkJoinPool pool) {
+		if (pool == null) {
+			throw new IllegalArgumentException("Pool must not be null");
+		}
+		this.parallelPool = pool;
+	}
+
+	/**
+	 * @return The pool that parallel traversals are evaluated on.
+	 * @see #setParallelPool(ForkJoinPool)
+	 */
+	public synchronized ForkJoinPool getParallelPool() {
+		if (parallelPool == null) {
+			parallelPool = new ForkJoinPool();
+		}
+		return parallelPool;
+	}
+
 	/**
 	 * @return A transaction object that is {@link Closeable}.
 	 */
 	public Transaction tx() {
 		if (delegate instanceof TransactionalGraph) {
-			return new Transaction((TransactionalGraph) delegate);
+			return new Transaction(this, (TransactionalGraph) delegate);
 		} else {
-			return new Transaction((TransactionalGraph) null);
+			return new Transaction(this, (TransactionalGraph) null);
+		}
+	}
+
+	/**
+	 * @return The identity map of the transaction on the current thread, or
+	 *         <code>null</code> if there isn't one.
+	 */
+	IdentityMap getIdentityMap() {
+		return identityMap.get();
+	}
+
+	/**
+	 * @return True if frames created on the current thread should cache
+	 *         their properties.
+	 */
+	boolean isPropertyCacheEnabled() {
+		return propertyCache.get() != null;
+	}
+
+	void setPropertyCacheEnabled(boolean enabled) {
+		if (enabled) {
+			propertyCache.set(Boolean.TRUE);
+		} else {
+			propertyCache.remove();
+		}
+	}
+
+	/**
+	 * @return The buffer of pending property writes of the transaction on
+	 *         the current thread, or <code>null</code> if writes go straight
+	 *         to the graph.
+	 */
+	WriteBuffer getWriteBuffer() {
+		return writeBuffer.get();
+	}
+
+	/**
+	 * @return True if the transaction on the current thread has buffered
+	 *         writes that have not yet been flushed to the graph.
+	 */
+	boolean hasPendingWrites() {
+		WriteBuffer writes = writeBuffer.get();
+		return writes != null && writes.size() > 0;
+	}
+
+	void setWriteBuffer(WriteBuffer buffer) {
+		if (buffer == null) {
+			writeBuffer.remove();
+		} else {
+			writeBuffer.set(buffer);
+		}
+	}
+
+	void setIdentityMap(IdentityMap map) {
+		if (map == null) {
+			identityMap.remove();
+		} else {
+			identityMap.set(map);
 		}
 	}
 
@@ -115,13 +229,56 @@ public class FramedGraph {
 		delegate.shutdown();
 	}
 
+	/**
+	 * @return The graph being framed. Changes made to it directly bypass
+	 *         frames, type resolution and write behind buffers.
+	 */
+	public Graph getBaseGraph() {
+		return delegate;
+	}
+
+	/**
+	 * Frame an element. Type resolution is lazy: {@link TVertex} and
+	 * {@link TEdge} are lightweight frames that never consult the
+	 * {@link TypeResolver}, so untyped traversal steps don't pay for reading
+	 * type information. The concrete type is only resolved when a specific
+	 * frame class is requested, for instance via <code>next(Class)</code>,
+	 * <code>toList(Class)</code> or <code>reframe(Class)</code>.
+	 */
 	<T extends FramedElement> T frameElement(Element e, Class<T> kind) {
 		if(e == null){
 			return null;
 		}
 
-		Class<T> frameType = (kind == TVertex.class || kind == TEdge.class) ? kind : resolver.resolve(e, kind);
+		return createFrame(e, resolveFrameType(e, kind));
+	}
+
+	<T extends FramedElement> Class<T> resolveFrameType(Element e, Class<T> kind) {
+		return (kind == TVertex.class || kind == TEdge.class) ? kind : resolver.resolve(e, kind);
+	}
+
+	<T extends FramedElement> T createFrame(Element e, Class<T> frameType) {
+		IdentityMap frames = identityMap.get();
+		if (frames != null) {
+			T framedElement = frames.get(e, frameType);
+			if (framedElement != null) {
+				return framedElement;
+			}
+		}
+		T framedElement = builder.create(e, frameType);
+		framedElement.init(this, e);
+		if (frames != null) {
+			frames.put(e, frameType, framedElement);
+		}
+		return framedElement;
+	}
 
+	/**
+	 * Create a frame that will be rebound to other elements. It never comes
+	 * from or goes in to the identity map, as rebinding would corrupt frames
+	 * that callers already hold.
+	 */
+	<T extends FramedElement> T createReusableFrame(Element e, Class<T> frameType) {
 		T framedElement = builder.create(e, frameType);
 		framedElement.init(this, e);
 		return framedElement;
@@ -133,6 +290,48 @@ public class FramedGraph {
 		return t;
 	}
 
+	<T extends FramedElement> void initNewElement(Element e, Class<T> kind) {
+		resolver.init(e, kind);
+	}
+
+	/**
+	 * Frame each element exactly once into an array backed list.
+	 */
+	<T extends FramedElement> List<T> frameList(Iterator<?> elements, Class<T> kind) {
+		return frameList(elements, kind, new ArrayList<T>());
+	}
+
+	/**
+	 * Frame each element exactly once into an array backed list presized for
+	 * the expected number of elements.
+	 */
+	<T extends FramedElement> List<T> frameList(Iterator<?> elements, Class<T> kind, int expectedSize) {
+		return frameList(elements, kind, new ArrayList<T>(expectedSize));
+	}
+
+	private <T extends FramedElement> List<T> frameList(Iterator<?> elements, Class<T> kind, List<T> framed) {
+		while (elements.hasNext()) {
+			framed.add(frameElement((Element) elements.next(), kind));
+		}
+		return framed;
+	}
+
+	/**
+	 * Frame each distinct element exactly once into a set. Elements are
+	 * deduplicated before they are framed.
+	 */
+	<T extends FramedElement> Set<T> frameSet(Iterator<?> elements, Class<T> kind) {
+		Set<Object> seen = new HashSet<>();
+		Set<T> framed = new HashSet<>();
+		while (elements.hasNext()) {
+			Object element = elements.next();
+			if (seen.add(element)) {
+				framed.add(frameElement((Element) element, kind));
+			}
+		}
+		return framed;
+	}
+
 	<T extends FramedElement> Iterator<T> frame(Iterator<? extends Element> pipeline, final Class<T> kind) {
 		return Iterators.transform(pipeline, new Function<Element, T>() {
 
@@ -184,7 +383,82 @@ public class FramedGraph {
 	 * @return The query.
 	 */
 	public EdgeTraversal<?, ?, ?> E() {
-		return new TraversalImpl(this, delegate).E();
+		return new GlobalEdgeTraversal(this, delegate);
+	}
+
+	/**
+	 * Query over all vertices in the graph in parallel.
+	 * 
+	 * @param partitions
+	 *            The maximum number of chunks to evaluate at once.
+	 * @return The parallel query.
+	 */
+	public ParallelTraversal<TVertex> parallelV(int partitions) {
+		return parallelV(partitions, TraversalFunctions.<VertexTraversal<?, ?, ?>> identity());
+	}
+
+	/**
+	 * Query over all vertices in the graph in parallel. The vertices are split
+	 * in to chunks and the traversal is applied to each chunk independently.
+	 * <p>
+	 * Chunks are evaluated on other threads, so they do not use the identity
+	 * map, property cache or write buffer of a transaction on the calling
+	 * thread. Frames created by the chunks write straight to the graph, and
+	 * the terminal operations fail if the calling thread has buffered writes
+	 * that have not been flushed.
+	 * 
+	 * @param partitions
+	 *            The maximum number of chunks to evaluate at once.
+	 * @param traversal
+	 *            The traversal to apply to each chunk of vertices.
+	 * @return The parallel query.
+	 */
+	public <T> ParallelTraversal<T> parallelV(int partitions,
+			final TraversalFunction<VertexTraversal<?, ?, ?>, ? extends Traversal<T, ?, ?, ?>> traversal) {
+		return new ParallelTraversal<>(this, delegate.getVertices(), partitions,
+				new TraversalFunction<Iterator<? extends Element>, Traversal<T, ?, ?, ?>>() {
+
+					@Override
+					public Traversal<T, ?, ?, ?> compute(Iterator<? extends Element> chunk) {
+						return traversal.compute(new TraversalImpl(FramedGraph.this, chunk).castToVertices());
+					}
+				});
+	}
+
+	/**
+	 * Query over all edges in the graph in parallel.
+	 * 
+	 * @param partitions
+	 *            The maximum number of chunks to evaluate at once.
+	 * @return The parallel query.
+	 */
+	public ParallelTraversal<TEdge> parallelE(int partitions) {
+		return parallelE(partitions, TraversalFunctions.<EdgeTraversal<?, ?, ?>> identity());
+	}
+
+	/**
+	 * Query over all edges in the graph in parallel. The edges are split in to
+	 * chunks and the traversal is applied to each chunk independently.
+	 * <p>
+	 * As with {@link #parallelV(int, TraversalFunction)} the chunks do not use
+	 * the session state of a transaction on the calling thread.
+	 * 
+	 * @param partitions
+	 *            The maximum number of chunks to evaluate at once.
+	 * @param traversal
+	 *            The traversal to apply to each chunk of edges.
+	 * @return The parallel query.
+	 */
+	public <T> ParallelTraversal<T> parallelE(int partitions,
+			final TraversalFunction<EdgeTraversal<?, ?, ?>, ? extends Traversal<T, ?, ?, ?>> traversal) {
+		return new ParallelTraversal<>(this, delegate.getEdges(), partitions,
+				new TraversalFunction<Iterator<? extends Element>, Traversal<T, ?, ?, ?>>() {
+
+					@Override
+					public Traversal<T, ?, ?, ?> compute(Iterator<? extends Element> chunk) {
+						return traversal.compute(new TraversalImpl(FramedGraph.this, chunk).castToEdges());
+					}
+				});
 	}
 
 	/**
@@ -195,14 +469,8 @@ public class FramedGraph {
 	 * @return The query.
 	 */
 	public VertexTraversal<?, ?, ?> v(final Collection<?> ids) {
-		return new TraversalImpl(this, Iterators.transform(ids.iterator(), new Function<Object, Vertex>() {
-
-			@Override
-			public Vertex apply(Object id) {
-				return delegate.getVertex(id);
-			}
-
-		})).castToVertices();
+		return new TraversalImpl(this, new ElementLookup(delegate, true, ids.iterator(), idBatchSize, idLookupExecutor))
+				.castToVertices();
 	}
 	
 	/**
@@ -213,14 +481,8 @@ public class FramedGraph {
 	 * @return The query.
 	 */
 	public VertexTraversal<?, ?, ?> v(final Object... ids) {
-		return new TraversalImpl(this, Iterators.transform(Iterators.forArray(ids), new Function<Object, Vertex>() {
-
-			@Override
-			public Vertex apply(Object id) {
-				return delegate.getVertex(id);
-			}
-
-		})).castToVertices();
+		return new TraversalImpl(this, new ElementLookup(delegate, true, Iterators.forArray(ids), idBatchSize,
+				idLookupExecutor)).castToVertices();
 	}
 
 	/**
@@ -231,14 +493,8 @@ public class FramedGraph {
 	 * @return The query.
 	 */
 	public EdgeTraversal<?, ?, ?> e(final Object... ids) {
-		return new TraversalImpl(this, Iterators.transform(Iterators.forArray(ids), new Function<Object, Edge>() {
-
-			@Override
-			public Edge apply(Object id) {
-				return delegate.getEdge(id);
-			}
-
-		})).castToEdges();
+		return new TraversalImpl(this, new ElementLookup(delegate, false, Iterators.forArray(ids), idBatchSize,
+				idLookupExecutor)).castToEdges();
 	}
 	
 	
@@ -250,14 +506,8 @@ public class FramedGraph {
 	 * @return The query.
 	 */
 	public EdgeTraversal<?, ?, ?> e(final Collection<?> ids) {
-		return new TraversalImpl(this, Iterators.transform(ids.iterator(), new Function<Object, Edge>() {
-
-			@Override
-			public Edge apply(Object id) {
-				return delegate.getEdge(id);
-			}
-
-		})).castToEdges();
+		return new TraversalImpl(this, new ElementLookup(delegate, false, ids.iterator(), idBatchSize,
+				idLookupExecutor)).castToEdges();
 	}
 
 }
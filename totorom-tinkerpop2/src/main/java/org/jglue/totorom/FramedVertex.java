@@ -49,6 +49,7 @@ package org.jglue.totorom;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
+import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Vertex;
 
@@ -109,7 +110,7 @@ public abstract class FramedVertex extends FramedElement {
 	}
 
 	protected VertexTraversal<?, ?, ?> out(final String... labels) {
-		return new TraversalImpl(graph(), this).castToVertices().out(labels);
+		return new AdjacentVertexTraversal(graph(), this, Direction.OUT, labels);
 	}
 
 	protected VertexTraversal<?, ?, ?> in(final int branchFactor, final String... labels) {
@@ -117,7 +118,7 @@ public abstract class FramedVertex extends FramedElement {
 	}
 
 	protected VertexTraversal<?, ?, ?> in(final String... labels) {
-		return new TraversalImpl(graph(), this).castToVertices().in(labels);
+		return new AdjacentVertexTraversal(graph(), this, Direction.IN, labels);
 	}
 
 	protected VertexTraversal<?, ?, ?> both(final int branchFactor, final String... labels) {
@@ -125,7 +126,7 @@ public abstract class FramedVertex extends FramedElement {
 	}
 
 	protected VertexTraversal<?, ?, ?> both(final String... labels) {
-		return new TraversalImpl(graph(), this).castToVertices().both(labels);
+		return new AdjacentVertexTraversal(graph(), this, Direction.BOTH, labels);
 	}
 
 	protected EdgeTraversal<?, ?, ?> outE(final int branchFactor, final String... labels) {
@@ -133,7 +134,7 @@ public abstract class FramedVertex extends FramedElement {
 	}
 
 	protected EdgeTraversal<?, ?, ?> outE(final String... labels) {
-		return new TraversalImpl(graph(), this).castToVertices().outE(labels);
+		return new AdjacentEdgeTraversal(graph(), this, Direction.OUT, labels);
 	}
 
 	protected EdgeTraversal<?, ?, ?> inE(final int branchFactor, final String... labels) {
@@ -141,7 +142,7 @@ public abstract class FramedVertex extends FramedElement {
 	}
 
 	protected EdgeTraversal<?, ?, ?> inE(final String... labels) {
-		return new TraversalImpl(graph(), this).castToVertices().inE(labels);
+		return new AdjacentEdgeTraversal(graph(), this, Direction.IN, labels);
 	}
 
 	protected EdgeTraversal<?, ?, ?> bothE(final int branchFactor, final String... labels) {
@@ -149,7 +150,7 @@ public abstract class FramedVertex extends FramedElement {
 	}
 
 	protected EdgeTraversal<?, ?, ?> bothE(final String... labels) {
-		return new TraversalImpl(graph(), this).castToVertices().bothE(labels);
+		return new AdjacentEdgeTraversal(graph(), this, Direction.BOTH, labels);
 	}
 
 	/**
@@ -338,6 +339,83 @@ public abstract class FramedVertex extends FramedElement {
 		return vertex;
 	}
 
+	/**
+	 * Find a path with the fewest out edges to the target vertex.
+	 * 
+	 * @param target
+	 *            The vertex to find a path to.
+	 * @param maxDepth
+	 *            The maximum number of edges in the path.
+	 * @param labels
+	 *            The labels of the edges to follow, or none for all edges.
+	 * @return The vertices and edges of the path starting with this vertex,
+	 *         or <code>null</code> if there is no path of at most maxDepth
+	 *         edges.
+	 */
+	protected Path shortestPath(FramedVertex target, int maxDepth, String... labels) {
+		return shortestPath(target, Direction.OUT, maxDepth, labels);
+	}
+
+	/**
+	 * Find a path with the fewest edges to the target vertex. The search runs
+	 * breadth first from both ends at once.
+	 * 
+	 * @param target
+	 *            The vertex to find a path to.
+	 * @param direction
+	 *            The direction of the edges to follow.
+	 * @param maxDepth
+	 *            The maximum number of edges in the path.
+	 * @param labels
+	 *            The labels of the edges to follow, or none for all edges.
+	 * @return The vertices and edges of the path starting with this vertex,
+	 *         or <code>null</code> if there is no path of at most maxDepth
+	 *         edges.
+	 */
+	protected Path shortestPath(FramedVertex target, Direction direction, int maxDepth, String... labels) {
+		return ShortestPaths.frame(graph(),
+				ShortestPaths.unweighted(element(), target.element(), direction, maxDepth, labels));
+	}
+
+	/**
+	 * Find a path of out edges with the least total weight to the target
+	 * vertex.
+	 * 
+	 * @param target
+	 *            The vertex to find a path to.
+	 * @param edgeWeight
+	 *            The weight of each edge, which must not be negative.
+	 * @param labels
+	 *            The labels of the edges to follow, or none for all edges.
+	 * @return The vertices and edges of the path starting with this vertex,
+	 *         or <code>null</code> if the target can't be reached.
+	 */
+	protected Path shortestPath(FramedVertex target, TraversalFunction<TEdge, ? extends Number> edgeWeight,
+			String... labels) {
+		return shortestPath(target, Direction.OUT, edgeWeight, labels);
+	}
+
+	/**
+	 * Find a path with the least total weight to the target vertex using
+	 * Dijkstra's algorithm.
+	 * 
+	 * @param target
+	 *            The vertex to find a path to.
+	 * @param direction
+	 *            The direction of the edges to follow.
+	 * @param edgeWeight
+	 *            The weight of each edge, which must not be negative.
+	 * @param labels
+	 *            The labels of the edges to follow, or none for all edges.
+	 * @return The vertices and edges of the path starting with this vertex,
+	 *         or <code>null</code> if the target can't be reached.
+	 */
+	protected Path shortestPath(FramedVertex target, Direction direction,
+			TraversalFunction<TEdge, ? extends Number> edgeWeight, String... labels) {
+		return ShortestPaths.frame(graph(), ShortestPaths.weighted(element(), target.element(), direction,
+				ShortestPaths.framedWeight(graph(), edgeWeight), labels));
+	}
+
 	/**
 	 * Shortcut to get frameTraversal of current element
 	 * 
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.tinkerpop.pipes.AbstractPipe;
+import com.tinkerpop.pipes.PipeFunction;
+import com.tinkerpop.pipes.filter.FilterPipe;
+
+/**
+ * Emits the incoming objects that pass every filter function. Consecutive
+ * filter steps are fused in to a single pipe of this type so that each object
+ * is framed once for the whole chain of filters rather than once per step.
+ * 
+ * @author Bryn Cooke (http://jglue.org)
+ */
+class FramingFilterPipe<S> extends AbstractPipe<S, S> implements FilterPipe<S> {
+	private FrameMaker frameMaker;
+	private List<PipeFunction<Object, Boolean>> filterFunctions = new ArrayList<>(2);
+
+	public FramingFilterPipe(FramedGraph graph, PipeFunction<?, Boolean> filterFunction) {
+		frameMaker = new FrameMaker(graph);
+		addFilter(filterFunction);
+	}
+
+	void addFilter(PipeFunction<?, Boolean> filterFunction) {
+		filterFunctions.add((PipeFunction<Object, Boolean>) filterFunction);
+	}
+
+	@Override
+	protected S processNextStart() {
+		while (true) {
+			S start = starts.next();
+			if (accept(frameMaker.makeFrame(start))) {
+				return start;
+			}
+		}
+	}
+
+	private boolean accept(Object framed) {
+		for (PipeFunction<Object, Boolean> filterFunction : filterFunctions) {
+			if (!filterFunction.compute(framed)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
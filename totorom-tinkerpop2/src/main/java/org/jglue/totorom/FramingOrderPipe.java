@@ -0,0 +1,194 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.google.common.collect.Ordering;
+import com.tinkerpop.pipes.AbstractPipe;
+import com.tinkerpop.pipes.Pipe;
+import com.tinkerpop.pipes.PipeFunction;
+import com.tinkerpop.pipes.transform.TransformPipe;
+
+/**
+ * Sorts the incoming objects. Each object is framed and its sort key is
+ * computed once up front instead of once per comparison. When the pipe is
+ * followed by a range only the leading objects are needed, so a bounded heap
+ * is used instead of sorting every object.
+ * 
+ * @author Bryn Cooke (http://jglue.org)
+ */
+class FramingOrderPipe<S> extends AbstractPipe<S, S> implements TransformPipe<S, S> {
+
+	private final FrameMaker frameMaker;
+	private final PipeFunction<Object, Object> keyFunction;
+	private final Comparator<Entry<S>> comparator;
+	private int bound = Integer.MAX_VALUE;
+	private Iterator<Entry<S>> sorted;
+	private List currentPath;
+
+	/**
+	 * Sort by comparing frames.
+	 */
+	public FramingOrderPipe(FramedGraph graph, Comparator<?> compareFunction) {
+		this(graph, null, (Comparator<Object>) compareFunction);
+	}
+
+	/**
+	 * Sort by the natural order of a key computed from each frame. Null keys
+	 * are sorted last.
+	 */
+	public FramingOrderPipe(FramedGraph graph, PipeFunction<?, ?> keyFunction, Order order) {
+		this(graph, keyFunction, keyOrder(order));
+	}
+
+	private static Comparator<Object> keyOrder(Order order) {
+		Ordering ordering = Ordering.natural();
+		return order == Order.DECR ? ordering.nullsFirst().reverse() : ordering.nullsLast();
+	}
+
+	private FramingOrderPipe(FramedGraph graph, PipeFunction<?, ?> keyFunction, final Comparator<Object> keyComparator) {
+		this.frameMaker = new FrameMaker(graph);
+		this.keyFunction = (PipeFunction<Object, Object>) keyFunction;
+		this.comparator = new Comparator<Entry<S>>() {
+			@Override
+			public int compare(Entry<S> o1, Entry<S> o2) {
+				int result = keyComparator.compare(o1.key, o2.key);
+				// Fall back to arrival order so that the sort is stable.
+				return result != 0 ? result : Long.compare(o1.sequence, o2.sequence);
+			}
+		};
+	}
+
+	/**
+	 * Only the first <code>bound</code> objects will be consumed.
+	 */
+	void bound(int bound) {
+		this.bound = Math.min(this.bound, bound);
+	}
+
+	@Override
+	protected S processNextStart() {
+		if (sorted == null) {
+			sorted = sort();
+		}
+		Entry<S> next = sorted.next();
+		currentPath = next.path;
+		return next.object;
+	}
+
+	private Iterator<Entry<S>> sort() {
+		List<Entry<S>> entries;
+		long sequence = 0;
+		if (bound == Integer.MAX_VALUE) {
+			entries = new ArrayList<>();
+			while (starts.hasNext()) {
+				entries.add(entry(starts.next(), sequence++));
+			}
+		} else {
+			if (bound <= 0) {
+				return Collections.<Entry<S>> emptyIterator();
+			}
+			// The head of the heap is the greatest entry seen so far so that
+			// it can be evicted when a lesser one arrives.
+			PriorityQueue<Entry<S>> heap = new PriorityQueue<>(Math.min(bound, 1024) + 1,
+					Collections.reverseOrder(comparator));
+			while (starts.hasNext()) {
+				heap.add(entry(starts.next(), sequence++));
+				if (heap.size() > bound) {
+					heap.poll();
+				}
+			}
+			entries = new ArrayList<>(heap);
+		}
+		Collections.sort(entries, comparator);
+		return entries.iterator();
+	}
+
+	private Entry<S> entry(S object, long sequence) {
+		Object framed = frameMaker.makeFrame(object);
+		Object key = keyFunction == null ? framed : keyFunction.compute(framed);
+		return new Entry<>(object, key, sequence, pathEnabled ? getPathToHere() : null);
+	}
+
+	@Override
+	public List getCurrentPath() {
+		if (pathEnabled) {
+			List path = new ArrayList(currentPath);
+			path.add(currentEnd);
+			return path;
+		} else {
+			throw new RuntimeException(Pipe.NO_PATH_MESSAGE);
+		}
+	}
+
+	@Override
+	public void reset() {
+		sorted = null;
+		currentPath = null;
+		super.reset();
+	}
+
+	private static final class Entry<S> {
+		private final S object;
+		private final Object key;
+		private final long sequence;
+		private final List path;
+
+		Entry(S object, Object key, long sequence, List path) {
+			this.object = object;
+			this.key = key;
+			this.sequence = sequence;
+			this.path = path;
+		}
+	}
+}
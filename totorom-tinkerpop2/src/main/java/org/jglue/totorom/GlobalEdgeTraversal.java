@@ -0,0 +1,152 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom;
+
+import java.util.Iterator;
+
+import com.google.common.collect.Iterables;
+import com.tinkerpop.blueprints.Compare;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Predicate;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.gremlin.Tokens.T;
+
+/**
+ * Specialized global edge traversal that bypasses gremlin pipeline for simple
+ * key value lookups using edge key indexes. Leading filters and limits are
+ * collected into a single graph query in the same way as
+ * {@link GlobalVertexTraversal}.
+ * 
+ * @author Bryn Cooke (http://jglue.org)
+ */
+public class GlobalEdgeTraversal extends SimpleEdgeTraversal {
+
+	private Graph delegate;
+	private QueryFilters filters = new QueryFilters();
+
+	public GlobalEdgeTraversal(FramedGraph graph, Graph delegate) {
+		super(graph);
+		this.delegate = delegate;
+
+	}
+
+	@Override
+	protected EdgeTraversal createTraversal() {
+		return filters.applyTo(new TraversalImpl(graph, delegate).E());
+	}
+
+	/**
+	 * Uses the key index if available, but will defer to graph query if not.
+	 */
+	@Override
+	protected Iterator createIterator() {
+		return filters.elements(delegate, Edge.class).iterator();
+	}
+
+	/**
+	 * Counts the raw elements without framing. Collections returned by the
+	 * graph are counted using their size.
+	 */
+	@Override
+	public long count() {
+		if (isRefinable()) {
+			return Iterables.size(filters.elements(delegate, Edge.class));
+		}
+		return super.count();
+	}
+
+	@Override
+	public EdgeTraversal E() {
+		return this;
+	}
+
+	@Override
+	public EdgeTraversal has(String key) {
+		return has(key, Compare.NOT_EQUAL, null);
+	}
+
+	@Override
+	public EdgeTraversal has(String key, Object value) {
+		return has(key, Compare.EQUAL, value);
+	}
+
+	@Override
+	public EdgeTraversal has(String key, T compareToken, Object value) {
+		return filters.tryHas(isRefinable(), key, compareToken, value) ? this : delegate().has(key, compareToken, value);
+	}
+
+	@Override
+	public EdgeTraversal has(String key, Predicate predicate, Object value) {
+		return filters.tryHas(isRefinable(), key, predicate, value) ? this : delegate().has(key, predicate, value);
+	}
+
+	@Override
+	public EdgeTraversal hasNot(String key) {
+		return has(key, Compare.EQUAL, null);
+	}
+
+	@Override
+	public EdgeTraversal hasNot(String key, Object value) {
+		return has(key, Compare.NOT_EQUAL, value);
+	}
+
+	@Override
+	public EdgeTraversal interval(String key, Comparable startValue, Comparable endValue) {
+		return filters.tryInterval(isRefinable(), key, startValue, endValue) ? this : delegate().interval(key, startValue,
+				endValue);
+	}
+
+	@Override
+	public EdgeTraversal range(int low, int high) {
+		return filters.tryRange(isRefinable(), low, high) ? this : delegate().range(low, high);
+	}
+
+	@Override
+	public EdgeTraversal limit(int limit) {
+		return filters.tryLimit(isRefinable(), limit) ? this : delegate().limit(limit);
+	}
+}
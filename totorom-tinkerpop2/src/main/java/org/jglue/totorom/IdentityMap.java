@@ -0,0 +1,190 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+
+/**
+ * A bounded map from element id, element kind and frame type to frame
+ * instance. While it is active repeated encounters of the same element reuse
+ * the same frame. When full the least recently used frame is evicted.
+ * 
+ * @see Transaction#enableIdentityMap(int)
+ * @author Bryn Cooke (http://jglue.org)
+ */
+class IdentityMap {
+
+	private static class Key {
+		private final Object id;
+		private final boolean edge;
+		private final Class<?> frameType;
+
+		/**
+		 * @param frameType
+		 *            The frame type, or <code>null</code> for a key that
+		 *            identifies the element alone.
+		 */
+		Key(Object id, boolean edge, Class<?> frameType) {
+			this.id = id;
+			this.edge = edge;
+			this.frameType = frameType;
+		}
+
+		Key elementKey() {
+			return new Key(id, edge, null);
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = 31 * id.hashCode() + (edge ? 1 : 0);
+			return frameType == null ? hash : 31 * hash + frameType.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return id.equals(other.id) && edge == other.edge
+					&& (frameType == null ? other.frameType == null : frameType.equals(other.frameType));
+		}
+	}
+
+	private final Map<Key, FramedElement> frames;
+
+	/**
+	 * The frame keys of each element, so that removing an element does not
+	 * scan every frame.
+	 */
+	private final Map<Key, List<Key>> elements = new HashMap<>();
+
+	/**
+	 * @param maxSize
+	 *            The maximum number of frames to keep.
+	 */
+	IdentityMap(final int maxSize) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("Max size must be at least 1");
+		}
+		frames = new LinkedHashMap<Key, FramedElement>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, FramedElement> eldest) {
+				if (size() > maxSize) {
+					unindex(eldest.getKey());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	private static Key key(Element element, Class<?> frameType) {
+		return new Key(element.getId(), element instanceof Edge, frameType);
+	}
+
+	<T extends FramedElement> T get(Element element, Class<T> frameType) {
+		@SuppressWarnings("unchecked")
+		T frame = (T) frames.get(key(element, frameType));
+		return frame;
+	}
+
+	void put(Element element, Class<?> frameType, FramedElement frame) {
+		Key key = key(element, frameType);
+		if (frames.put(key, frame) == null) {
+			Key elementKey = key.elementKey();
+			List<Key> keys = elements.get(elementKey);
+			if (keys == null) {
+				keys = new ArrayList<>(1);
+				elements.put(elementKey, keys);
+			}
+			keys.add(key);
+		}
+	}
+
+	private void unindex(Key key) {
+		Key elementKey = key.elementKey();
+		List<Key> keys = elements.get(elementKey);
+		keys.remove(key);
+		if (keys.isEmpty()) {
+			elements.remove(elementKey);
+		}
+	}
+
+	/**
+	 * Forget every frame of an element, for instance because it has been
+	 * removed. Frames of an element of the other kind with an equal id are
+	 * kept.
+	 */
+	void remove(Element element) {
+		List<Key> keys = elements.remove(key(element, null));
+		if (keys != null) {
+			for (Key key : keys) {
+				frames.remove(key);
+			}
+		}
+	}
+
+	void clear() {
+		frames.clear();
+		elements.clear();
+	}
+
+	int size() {
+		return frames.size();
+	}
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.tinkerpop.blueprints.Element;
+
+/**
+ * Type resolver that stores the Java class of the frame in the 'java_class'
+ * property of the element.
+ * 
+ * Class names are resolved once and cached, including names that cannot be
+ * found, so framing does not hit the class loader for every element.
+ * 
+ * Optionally a map of type codes can be supplied. Frame classes that have a
+ * code are stored as a compact integer rather than the fully qualified class
+ * name. Elements that were stored with a class name can still be resolved.
+ * 
+ * @author Bryn Cooke (http://jglue.org)
+ */
+public class JavaTypeResolver implements TypeResolver {
+
+	/**
+	 * The property that the type is stored in.
+	 */
+	public static final String TYPE_PROPERTY = "java_class";
+
+	/**
+	 * Marks a class name that could not be found.
+	 */
+	private static final class Missing {
+	}
+
+	private final ConcurrentMap<String, Class<?>> classes = new ConcurrentHashMap<>();
+	private final Map<Integer, Class<?>> codeToType;
+	private final Map<Class<?>, Integer> typeToCode;
+
+	/**
+	 * Construct a type resolver that stores class names.
+	 */
+	public JavaTypeResolver() {
+		this(Collections.<Integer, Class<? extends FramedElement>> emptyMap());
+	}
+
+	/**
+	 * Construct a type resolver that stores type codes for the supplied frame
+	 * classes and class names for everything else.
+	 * 
+	 * @param typeCodes
+	 *            The code to store for each frame class. Codes must be unique.
+	 */
+	public JavaTypeResolver(Map<Integer, Class<? extends FramedElement>> typeCodes) {
+		codeToType = new HashMap<>();
+		typeToCode = new HashMap<>();
+		for (Map.Entry<Integer, Class<? extends FramedElement>> entry : typeCodes.entrySet()) {
+			codeToType.put(entry.getKey(), entry.getValue());
+			if (typeToCode.put(entry.getValue(), entry.getKey()) != null) {
+				throw new IllegalArgumentException("The class " + entry.getValue().getName() + " has more than one type code");
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends FramedElement> Class<T> resolve(Element element, Class<T> kind) {
+		Object type = element.getProperty(TYPE_PROPERTY);
+		if (type == null) {
+			return kind;
+		}
+		if (type instanceof Number) {
+			// Some stores read ints back as longs, but the code must still be
+			// an integral value in int range.
+			Number number = (Number) type;
+			int code = number.intValue();
+			if (number.longValue() != code || number.doubleValue() != code) {
+				throw new RuntimeException("The type code " + type + " is not a valid type code");
+			}
+			Class<?> clazz = codeToType.get(code);
+			if (clazz == null) {
+				throw new RuntimeException("The type code " + type + " is not registered");
+			}
+			return (Class<T>) clazz;
+		}
+		return (Class<T>) forName((String) type);
+	}
+
+	@Override
+	public <T extends FramedElement> void init(Element element, Class<T> kind) {
+		if (element.getProperty(TYPE_PROPERTY) == null) {
+			Integer code = typeToCode.get(kind);
+			if (code != null) {
+				element.setProperty(TYPE_PROPERTY, code);
+			} else {
+				element.setProperty(TYPE_PROPERTY, kind.getName());
+			}
+		}
+	}
+
+	private Class<?> forName(String name) {
+		Class<?> clazz = classes.get(name);
+		if (clazz == null) {
+			try {
+				clazz = loadClass(name);
+			} catch (ClassNotFoundException e) {
+				clazz = Missing.class;
+			}
+			classes.putIfAbsent(name, clazz);
+		}
+		if (clazz == Missing.class) {
+			throw new RuntimeException("The class " + name + " cannot be found");
+		}
+		return clazz;
+	}
+
+	Class<?> loadClass(String name) throws ClassNotFoundException {
+		return Class.forName(name);
+	}
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom;
+
+/**
+ * The count, sum, minimum, maximum, mean and variance of a sequence of
+ * numbers, accumulated in a single pass without keeping the numbers. Stats
+ * for separate parts of a sequence can be merged, so they may be gathered in
+ * parallel.
+ *
+ * @see Traversal#stats(String)
+ * @author Bryn Cooke (http://jglue.org)
+ */
+public class NumericStats {
+
+	private long count;
+	private double sum;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+	private double mean;
+	private double squaredDeviations;
+
+	/**
+	 * Add a number.
+	 *
+	 * @param value
+	 *            The number to add.
+	 */
+	public void accept(double value) {
+		count++;
+		sum += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+		// Welford's update keeps the variance accurate for large counts.
+		double delta = value - mean;
+		mean += delta / count;
+		squaredDeviations += delta * (value - mean);
+	}
+
+	/**
+	 * Add the numbers accumulated by other stats.
+	 *
+	 * @param other
+	 *            The stats to merge in to these.
+	 * @return this
+	 */
+	public NumericStats merge(NumericStats other) {
+		if (other.count == 0) {
+			return this;
+		}
+		if (count == 0) {
+			count = other.count;
+			sum = other.sum;
+			min = other.min;
+			max = other.max;
+			mean = other.mean;
+			squaredDeviations = other.squaredDeviations;
+			return this;
+		}
+		long total = count + other.count;
+		double delta = other.mean - mean;
+		squaredDeviations += other.squaredDeviations + delta * delta * count * other.count / total;
+		mean += delta * other.count / total;
+		count = total;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		return this;
+	}
+
+	/**
+	 * @return The number of numbers.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return The sum of the numbers, or 0 if there are none.
+	 */
+	public double getSum() {
+		return sum;
+	}
+
+	/**
+	 * @return The smallest number, or NaN if there are none.
+	 */
+	public double getMin() {
+		return count == 0 ? Double.NaN : min;
+	}
+
+	/**
+	 * @return The largest number, or NaN if there are none.
+	 */
+	public double getMax() {
+		return count == 0 ? Double.NaN : max;
+	}
+
+	/**
+	 * @return The mean of the numbers, or NaN if there are none.
+	 */
+	public double getMean() {
+		return count == 0 ? Double.NaN : mean;
+	}
+
+	/**
+	 * @return The population variance of the numbers, or NaN if there are
+	 *         none.
+	 */
+	public double getVariance() {
+		return count == 0 ? Double.NaN : squaredDeviations / count;
+	}
+
+	/**
+	 * @return The population standard deviation of the numbers, or NaN if
+	 *         there are none.
+	 */
+	public double getStandardDeviation() {
+		return Math.sqrt(getVariance());
+	}
+
+	@Override
+	public String toString() {
+		return "NumericStats [count=" + count + ", sum=" + sum + ", min=" + getMin() + ", max=" + getMax() + ", mean="
+				+ getMean() + ", variance=" + getVariance() + "]";
+	}
+}
@@ -0,0 +1,400 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import com.tinkerpop.blueprints.Element;
+
+/**
+ * Runs a traversal over all the vertices or edges of a graph in parallel.
+ * <p>
+ * The elements are read in chunks and an independent traversal is built for
+ * each chunk and evaluated on the graph's {@link ForkJoinPool}. Partial results
+ * are merged in chunk order by the terminal operations, so the results are the
+ * same as evaluating the traversal once over every element, as long as the
+ * traversal does not rely on state that spans chunks such as
+ * <code>dedup</code>, <code>order</code> or <code>range</code>.
+ * <p>
+ * The underlying graph must support reads from multiple threads. Chunks do
+ * not use the identity map, property cache or write buffer of a transaction
+ * on the thread that runs the terminal operation, so a terminal operation
+ * fails if that thread has buffered writes that have not been flushed.
+ * 
+ * @see FramedGraph#parallelV(int, TraversalFunction)
+ * @see FramedGraph#parallelE(int, TraversalFunction)
+ * @see FramedGraph#setParallelPool(ForkJoinPool)
+ * @author Bryn Cooke (http://jglue.org)
+ */
+public class ParallelTraversal<T> {
+
+	/**
+	 * The number of elements per chunk when none is specified.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+	private interface Merger<R> {
+		void merge(R result);
+	}
+
+	private FramedGraph graph;
+	private ForkJoinPool pool;
+	private Iterable<? extends Element> elements;
+	private int partitions;
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+	private TraversalFunction<Iterator<? extends Element>, ? extends Traversal<T, ?, ?, ?>> chunkTraversal;
+
+	ParallelTraversal(FramedGraph graph, Iterable<? extends Element> elements, int partitions,
+			TraversalFunction<Iterator<? extends Element>, ? extends Traversal<T, ?, ?, ?>> chunkTraversal) {
+		if (partitions < 1) {
+			throw new IllegalArgumentException("Partitions must be at least 1");
+		}
+		this.graph = graph;
+		this.pool = graph.getParallelPool();
+		this.elements = elements;
+		this.partitions = partitions;
+		this.chunkTraversal = chunkTraversal;
+	}
+
+	/**
+	 * Set the number of elements processed by each task.
+	 * 
+	 * @param chunkSize
+	 *            The number of elements per chunk.
+	 * @return this
+	 */
+	public ParallelTraversal<T> chunkSize(int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be at least 1");
+		}
+		this.chunkSize = chunkSize;
+		return this;
+	}
+
+	/**
+	 * Return the number of objects iterated through the pipeline.
+	 * 
+	 * @return the number of objects iterated
+	 */
+	public long count() {
+		final long[] count = new long[1];
+		execute(new TraversalFunction<Traversal<T, ?, ?, ?>, Long>() {
+
+			@Override
+			public Long compute(Traversal<T, ?, ?, ?> traversal) {
+				return traversal.count();
+			}
+		}, new Merger<Long>() {
+
+			@Override
+			public void merge(Long result) {
+				count[0] += result;
+			}
+		});
+		return count[0];
+	}
+
+	/**
+	 * Sum a property of the elements in the pipeline as longs.
+	 *
+	 * @param key
+	 *            The property key.
+	 * @return The sum.
+	 * @see Traversal#sumLong(String)
+	 */
+	public long sumLong(final String key) {
+		final long[] sum = new long[1];
+		execute(new TraversalFunction<Traversal<T, ?, ?, ?>, Long>() {
+
+			@Override
+			public Long compute(Traversal<T, ?, ?, ?> traversal) {
+				return traversal.sumLong(key);
+			}
+		}, new Merger<Long>() {
+
+			@Override
+			public void merge(Long result) {
+				sum[0] += result;
+			}
+		});
+		return sum[0];
+	}
+
+	/**
+	 * Sum a property of the elements in the pipeline as doubles.
+	 *
+	 * @param key
+	 *            The property key.
+	 * @return The sum.
+	 * @see Traversal#sumDouble(String)
+	 */
+	public double sumDouble(final String key) {
+		final double[] sum = new double[1];
+		execute(new TraversalFunction<Traversal<T, ?, ?, ?>, Double>() {
+
+			@Override
+			public Double compute(Traversal<T, ?, ?, ?> traversal) {
+				return traversal.sumDouble(key);
+			}
+		}, new Merger<Double>() {
+
+			@Override
+			public void merge(Double result) {
+				sum[0] += result;
+			}
+		});
+		return sum[0];
+	}
+
+	/**
+	 * Gather stats for a property of the elements in the pipeline. Each chunk
+	 * gathers its own stats and they are merged in chunk order.
+	 *
+	 * @param key
+	 *            The property key.
+	 * @return The stats.
+	 * @see Traversal#stats(String)
+	 */
+	public NumericStats stats(final String key) {
+		final NumericStats stats = new NumericStats();
+		execute(new TraversalFunction<Traversal<T, ?, ?, ?>, NumericStats>() {
+
+			@Override
+			public NumericStats compute(Traversal<T, ?, ?, ?> traversal) {
+				return traversal.stats(key);
+			}
+		}, new Merger<NumericStats>() {
+
+			@Override
+			public void merge(NumericStats result) {
+				stats.merge(result);
+			}
+		});
+		return stats;
+	}
+
+	/**
+	 * Count the elements in the pipeline by the bucket that a property falls
+	 * in to.
+	 *
+	 * @param key
+	 *            The property key.
+	 * @param bounds
+	 *            The bucket bounds in increasing order.
+	 * @return The counts, one more than the number of bounds.
+	 * @see Traversal#histogram(String, double...)
+	 */
+	public long[] histogram(final String key, final double... bounds) {
+		final long[] counts = new long[bounds.length + 1];
+		execute(new TraversalFunction<Traversal<T, ?, ?, ?>, long[]>() {
+
+			@Override
+			public long[] compute(Traversal<T, ?, ?, ?> traversal) {
+				return traversal.histogram(key, bounds);
+			}
+		}, new Merger<long[]>() {
+
+			@Override
+			public void merge(long[] result) {
+				for (int bucket = 0; bucket < counts.length; bucket++) {
+					counts[bucket] += result[bucket];
+				}
+			}
+		});
+		return counts;
+	}
+
+	/**
+	 * Return a list of all the objects in the pipeline.
+	 * 
+	 * @return a list of all the objects
+	 */
+	public List<T> toList() {
+		return (List<T>) fill(new ArrayList<T>());
+	}
+
+	/**
+	 * Return a set of all the objects in the pipeline.
+	 * 
+	 * @return a set of all the objects
+	 */
+	public Set<T> toSet() {
+		return (Set<T>) fill(new HashSet<T>());
+	}
+
+	/**
+	 * The objects in the pipeline are greedily collected into an ArrayList.
+	 * 
+	 * @return the collected objects
+	 */
+	public Collection<T> aggregate() {
+		return toList();
+	}
+
+	/**
+	 * Fill the provided collection with the objects in the pipeline. The
+	 * collection is only modified from the calling thread.
+	 * 
+	 * @param collection
+	 *            the collection to fill
+	 * @return the collection filled
+	 */
+	public Collection<T> fill(final Collection<T> collection) {
+		execute(new TraversalFunction<Traversal<T, ?, ?, ?>, List<T>>() {
+
+			@Override
+			public List<T> compute(Traversal<T, ?, ?, ?> traversal) {
+				return traversal.toList();
+			}
+		}, new Merger<List<T>>() {
+
+			@Override
+			public void merge(List<T> result) {
+				collection.addAll(result);
+			}
+		});
+		return collection;
+	}
+
+	/**
+	 * Count the objects in the pipeline. The map keys are the objects and the
+	 * map values are the number of times that they occurred.
+	 * 
+	 * @return the counts
+	 */
+	public Map<T, Long> groupCount() {
+		return groupCount(TraversalFunctions.<T> identity());
+	}
+
+	/**
+	 * Count the objects in the pipeline. The map keys are determined by the
+	 * function on the incoming object and the map values are the number of
+	 * times that each key occurred.
+	 * 
+	 * @param keyFunction
+	 *            the key function to determine map key
+	 * @return the counts
+	 */
+	public <K> Map<K, Long> groupCount(final TraversalFunction<T, K> keyFunction) {
+		final Map<K, Long> counts = new HashMap<>();
+		execute(new TraversalFunction<Traversal<T, ?, ?, ?>, Map<K, Long>>() {
+
+			@Override
+			public Map<K, Long> compute(Traversal<T, ?, ?, ?> traversal) {
+				Map<K, Long> partial = new HashMap<>();
+				for (T object : traversal) {
+					increment(partial, keyFunction.compute(object), 1);
+				}
+				return partial;
+			}
+		}, new Merger<Map<K, Long>>() {
+
+			@Override
+			public void merge(Map<K, Long> result) {
+				for (Map.Entry<K, Long> entry : result.entrySet()) {
+					increment(counts, entry.getKey(), entry.getValue());
+				}
+			}
+		});
+		return counts;
+	}
+
+	private static <K> void increment(Map<K, Long> counts, K key, long amount) {
+		Long count = counts.get(key);
+		counts.put(key, count == null ? amount : count + amount);
+	}
+
+	private <R> void execute(final TraversalFunction<Traversal<T, ?, ?, ?>, R> terminal, Merger<R> merger) {
+		if (graph.hasPendingWrites()) {
+			throw new IllegalStateException(
+					"Parallel traversals cannot see buffered writes, flush the transaction before running them");
+		}
+		// Bound the number of chunks in flight so that no more than the
+		// requested partitions run at once and the whole graph is not
+		// buffered in memory while merging in order.
+		Deque<ForkJoinTask<R>> running = new ArrayDeque<>();
+		try {
+			Iterator<? extends Element> iterator = elements.iterator();
+			while (iterator.hasNext()) {
+				final List<Element> chunk = new ArrayList<>(chunkSize);
+				while (iterator.hasNext() && chunk.size() < chunkSize) {
+					chunk.add(iterator.next());
+				}
+				running.add(pool.submit(new Callable<R>() {
+
+					@Override
+					public R call() {
+						return terminal.compute(chunkTraversal.compute(chunk.iterator()));
+					}
+				}));
+				if (running.size() >= partitions) {
+					merger.merge(running.poll().join());
+				}
+			}
+			while (!running.isEmpty()) {
+				merger.merge(running.poll().join());
+			}
+		} finally {
+			// The pool is shared, so only abandon this traversal's chunks.
+			for (ForkJoinTask<R> task : running) {
+				task.cancel(true);
+			}
+		}
+	}
+}
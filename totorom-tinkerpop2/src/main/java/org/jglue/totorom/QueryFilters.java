@@ -0,0 +1,364 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.collect.Iterators;
+import com.tinkerpop.blueprints.Compare;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.KeyIndexableGraph;
+import com.tinkerpop.blueprints.Predicate;
+import com.tinkerpop.blueprints.Query;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.gremlin.Tokens;
+import com.tinkerpop.gremlin.Tokens.T;
+import com.tinkerpop.pipes.transform.QueryPipe.HasContainer;
+import com.tinkerpop.pipes.transform.QueryPipe.IntervalContainer;
+
+/**
+ * Property filters, intervals and a limit collected from traversal steps so
+ * that they can be answered by a single blueprints {@link Query}. The same
+ * steps can be replayed on to a traversal if a full gremlin pipeline turns
+ * out to be needed.
+ * 
+ * @author Bryn Cooke (http://jglue.org)
+ */
+class QueryFilters {
+
+	/**
+	 * The maximum number of elements read from an index to estimate the
+	 * selectivity of a key. A lookup with fewer elements is selective enough
+	 * to drive the query.
+	 */
+	static final int SELECTIVITY_PROBE = 32;
+
+	List<HasContainer> hasContainers;
+	List<IntervalContainer> intervalContainers;
+	int limit = -1;
+
+	/**
+	 * @return True if no filters have been collected.
+	 */
+	boolean isEmpty() {
+		return hasContainers == null && intervalContainers == null && limit == -1;
+	}
+
+	/**
+	 * A filter may only be collected if it is evaluated before the limit. The
+	 * id and label keys are not properties so are left to the pipeline.
+	 * 
+	 * @param key
+	 *            The key being filtered on.
+	 * @return True if a filter on the key may be collected.
+	 */
+	private boolean canAdd(String key) {
+		return limit == -1 && !Tokens.ID.equals(key) && !Tokens.LABEL.equals(key);
+	}
+
+	/**
+	 * Collect a property filter if possible. The traversal must add the step
+	 * to its full pipeline if the filter was not collected.
+	 * 
+	 * @param refinable
+	 *            True if the traversal has neither built a pipeline nor
+	 *            started iterating.
+	 * @return True if the filter was collected.
+	 */
+	boolean tryHas(boolean refinable, String key, T compareToken, Object value) {
+		if (!refinable || !canAdd(key)) {
+			return false;
+		}
+		if (value != null && value.getClass().isArray()) {
+			value = Arrays.asList((Object[]) value);
+		}
+		return tryHas(refinable, key, Tokens.mapPredicate(compareToken), value);
+	}
+
+	/**
+	 * @see #tryHas(boolean, String, T, Object)
+	 */
+	boolean tryHas(boolean refinable, String key, Predicate predicate, Object value) {
+		if (!refinable || !canAdd(key)) {
+			return false;
+		}
+		if (value instanceof Enum) {
+			value = value.toString();
+		}
+		if (hasContainers == null) {
+			hasContainers = new ArrayList<>(2);
+		}
+		hasContainers.add(new HasContainer(key, predicate, value));
+		return true;
+	}
+
+	/**
+	 * @see #tryHas(boolean, String, T, Object)
+	 */
+	boolean tryInterval(boolean refinable, String key, Comparable<?> startValue, Comparable<?> endValue) {
+		if (!refinable || !canAdd(key)) {
+			return false;
+		}
+		if (startValue instanceof Enum) {
+			startValue = startValue.toString();
+		}
+		if (endValue instanceof Enum) {
+			endValue = endValue.toString();
+		}
+		if (intervalContainers == null) {
+			intervalContainers = new ArrayList<>(1);
+		}
+		intervalContainers.add(new IntervalContainer(key, startValue, endValue));
+		return true;
+	}
+
+	/**
+	 * @see #tryHas(boolean, String, T, Object)
+	 */
+	boolean tryLimit(boolean refinable, int limit) {
+		if (!refinable || limit < 1) {
+			return false;
+		}
+		this.limit = this.limit == -1 ? limit : Math.min(this.limit, limit);
+		return true;
+	}
+
+	/**
+	 * Collect a range as a limit if it starts at the first element.
+	 * 
+	 * @see #tryHas(boolean, String, T, Object)
+	 */
+	boolean tryRange(boolean refinable, int low, int high) {
+		int limit = rangeToLimit(low, high);
+		return limit != -1 && tryLimit(refinable, limit);
+	}
+
+	/**
+	 * Converts an inclusive gremlin range to a limit.
+	 * 
+	 * @return The limit, or -1 if the range cannot be expressed as a limit.
+	 */
+	static int rangeToLimit(int low, int high) {
+		if (low == 0 && high >= 0 && high < Integer.MAX_VALUE) {
+			return high + 1;
+		}
+		return -1;
+	}
+
+	/**
+	 * Add the filters to a blueprints query.
+	 * 
+	 * @param query
+	 *            The query to add to.
+	 * @param hasContainers
+	 *            The property filters in the order they should be added.
+	 * @return The query.
+	 */
+	Query applyTo(Query query, List<HasContainer> hasContainers) {
+		if (hasContainers != null) {
+			for (HasContainer has : hasContainers) {
+				query = query.has(has.key, has.predicate, has.value);
+			}
+		}
+		if (intervalContainers != null) {
+			for (IntervalContainer interval : intervalContainers) {
+				query = query.interval(interval.key, interval.startValue, interval.endValue);
+			}
+		}
+		if (limit != -1) {
+			query = query.limit(limit);
+		}
+		return query;
+	}
+
+	Query applyTo(Query query) {
+		return applyTo(query, hasContainers);
+	}
+
+	/**
+	 * Find the elements of a graph that pass the filters. A single equality
+	 * on an indexed key is looked up directly, anything else is answered by a
+	 * graph query.
+	 * 
+	 * @param graph
+	 *            The graph to query.
+	 * @param kind
+	 *            Either {@link Vertex} or {@link Edge}.
+	 * @return The raw elements.
+	 */
+	Iterable<? extends Element> elements(Graph graph, Class<? extends Element> kind) {
+		boolean vertices = Vertex.class.equals(kind);
+		if (isEmpty()) {
+			// There is no key so it is a full traversal.
+			return vertices ? graph.getVertices() : graph.getEdges();
+		}
+		if (hasContainers != null && hasContainers.size() == 1 && intervalContainers == null && limit == -1) {
+			HasContainer has = hasContainers.get(0);
+			if (Compare.EQUAL.equals(has.predicate)
+					&& (graph instanceof TinkerGraph || graph instanceof KeyIndexableGraph
+							&& ((KeyIndexableGraph) graph).getIndexedKeys(kind).contains(has.key))) {
+				// Tinker graph will do it's own check to see if it supports
+				// the key, other graphs support lookups for indexed keys.
+				return lookup(graph, vertices, has);
+			}
+		}
+
+		// Either there are several filters or the key is not indexed, but
+		// it may still be supported via the query interface.
+		Query query = applyTo(graph.query(), plan(graph, kind));
+		return vertices ? query.vertices() : query.edges();
+	}
+
+	private static Iterable<? extends Element> lookup(Graph graph, boolean vertices, HasContainer has) {
+		return vertices ? graph.getVertices(has.key, has.value) : graph.getEdges(has.key, has.value);
+	}
+
+	/**
+	 * Order the property filters so that a selective indexed equality lookup
+	 * comes first. Graph queries use the first indexed equality filter to find
+	 * candidates and check the rest against each candidate. Lookups are probed
+	 * in the declared order and probing stops at the first one with fewer
+	 * elements than {@link #SELECTIVITY_PROBE}, so planning reads at most that
+	 * many elements per indexed filter.
+	 * 
+	 * @return The property filters in the order they should be queried.
+	 */
+	private List<HasContainer> plan(Graph graph, Class<? extends Element> kind) {
+		if (hasContainers == null || hasContainers.size() < 2 || !(graph instanceof KeyIndexableGraph)) {
+			return hasContainers;
+		}
+		Set<String> indexedKeys = ((KeyIndexableGraph) graph).getIndexedKeys(kind);
+		List<HasContainer> candidates = new ArrayList<>(hasContainers.size());
+		for (HasContainer has : hasContainers) {
+			if (Compare.EQUAL.equals(has.predicate) && has.value != null && indexedKeys.contains(has.key)) {
+				candidates.add(has);
+			}
+		}
+		if (candidates.isEmpty()) {
+			return hasContainers;
+		}
+		HasContainer best = candidates.get(0);
+		if (candidates.size() > 1) {
+			boolean vertices = Vertex.class.equals(kind);
+			int bestEstimate = Integer.MAX_VALUE;
+			for (HasContainer has : candidates) {
+				int estimate = Iterators.size(Iterators.limit(lookup(graph, vertices, has).iterator(), SELECTIVITY_PROBE));
+				if (estimate < bestEstimate) {
+					best = has;
+					bestEstimate = estimate;
+				}
+				if (estimate < SELECTIVITY_PROBE) {
+					break;
+				}
+			}
+		}
+		List<HasContainer> planned = new ArrayList<>(hasContainers.size());
+		planned.add(best);
+		for (HasContainer has : hasContainers) {
+			if (has != best) {
+				planned.add(has);
+			}
+		}
+		return planned;
+	}
+
+	/**
+	 * Replay the filters on to a vertex traversal.
+	 * 
+	 * @param traversal
+	 *            The traversal to add the steps to.
+	 * @return The traversal.
+	 */
+	@SuppressWarnings("unchecked")
+	VertexTraversal<?, ?, ?> applyTo(VertexTraversal<?, ?, ?> traversal) {
+		if (hasContainers != null) {
+			for (HasContainer has : hasContainers) {
+				traversal = traversal.has(has.key, has.predicate, has.value);
+			}
+		}
+		if (intervalContainers != null) {
+			for (IntervalContainer interval : intervalContainers) {
+				traversal = traversal.interval(interval.key, interval.startValue, interval.endValue);
+			}
+		}
+		if (limit != -1) {
+			traversal = traversal.limit(limit);
+		}
+		return traversal;
+	}
+
+	/**
+	 * Replay the filters on to an edge traversal.
+	 * 
+	 * @param traversal
+	 *            The traversal to add the steps to.
+	 * @return The traversal.
+	 */
+	@SuppressWarnings("unchecked")
+	EdgeTraversal<?, ?, ?> applyTo(EdgeTraversal<?, ?, ?> traversal) {
+		if (hasContainers != null) {
+			for (HasContainer has : hasContainers) {
+				traversal = traversal.has(has.key, has.predicate, has.value);
+			}
+		}
+		if (intervalContainers != null) {
+			for (IntervalContainer interval : intervalContainers) {
+				traversal = traversal.interval(interval.key, interval.startValue, interval.endValue);
+			}
+		}
+		if (limit != -1) {
+			traversal = traversal.limit(limit);
+		}
+		return traversal;
+	}
+}
@@ -0,0 +1,280 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.pipes.PipeFunction;
+
+/**
+ * Shortest path searches between two vertices. Each search records the edge
+ * that each vertex was first reached by and walks these parent pointers back
+ * to build the path, so no candidate paths are materialized along the way.
+ * Paths alternate between vertices and edges starting and ending with a
+ * vertex.
+ * 
+ * @author Bryn Cooke (http://jglue.org)
+ */
+class ShortestPaths {
+
+	private ShortestPaths() {
+
+	}
+
+	/**
+	 * Find a path with the fewest edges using a breadth first search from
+	 * both ends that always expands the smaller frontier.
+	 * 
+	 * @return The path or <code>null</code> if there is no path of at most
+	 *         maxDepth edges.
+	 */
+	static List<Element> unweighted(Vertex source, Vertex target, Direction direction, int maxDepth, String... labels) {
+		if (source.getId().equals(target.getId())) {
+			return Collections.<Element> singletonList(source);
+		}
+		Search forward = new Search(source, direction, labels);
+		Search backward = new Search(target, direction.opposite(), labels);
+		while (forward.depth + backward.depth < maxDepth && !forward.frontier.isEmpty()
+				&& !backward.frontier.isEmpty()) {
+			Search expanding = forward.frontier.size() <= backward.frontier.size() ? forward : backward;
+			Search other = expanding == forward ? backward : forward;
+			Vertex meeting = expanding.expand(other);
+			if (meeting != null) {
+				List<Element> path = forward.pathTo(meeting);
+				Collections.reverse(path);
+				List<Element> rest = backward.pathTo(meeting);
+				path.addAll(rest.subList(1, rest.size()));
+				return path;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Find a path with the least total weight using Dijkstra's algorithm.
+	 * 
+	 * @param weight
+	 *            The weight of each edge, which must not be negative.
+	 * @return The path or <code>null</code> if the target is not reachable.
+	 */
+	static List<Element> weighted(Vertex source, Vertex target, Direction direction,
+			PipeFunction<Edge, ? extends Number> weight, String... labels) {
+		Map<Object, Double> distances = new HashMap<>();
+		Map<Object, Edge> parents = new HashMap<>();
+		PriorityQueue<Distance> queue = new PriorityQueue<>();
+		distances.put(source.getId(), 0d);
+		queue.add(new Distance(source, 0));
+		while (!queue.isEmpty()) {
+			Distance closest = queue.poll();
+			Object id = closest.vertex.getId();
+			if (closest.distance > distances.get(id)) {
+				// A shorter distance was found after this one was queued.
+				continue;
+			}
+			if (id.equals(target.getId())) {
+				LinkedList<Element> path = new LinkedList<>();
+				path.add(closest.vertex);
+				Edge edge;
+				while ((edge = parents.get(path.getFirst().getId())) != null) {
+					path.addFirst(edge);
+					path.addFirst(adjacent(edge, (Vertex) path.get(1), direction.opposite()));
+				}
+				return new ArrayList<>(path);
+			}
+			for (Edge edge : closest.vertex.getEdges(direction, labels)) {
+				double edgeWeight = weight.compute(edge).doubleValue();
+				if (edgeWeight < 0) {
+					throw new IllegalArgumentException("Edge weights must not be negative, but edge " + edge.getId()
+							+ " has weight " + edgeWeight);
+				}
+				Vertex next = adjacent(edge, closest.vertex, direction);
+				double distance = closest.distance + edgeWeight;
+				Double known = distances.get(next.getId());
+				if (known == null || distance < known) {
+					distances.put(next.getId(), distance);
+					parents.put(next.getId(), edge);
+					queue.add(new Distance(next, distance));
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Frame the edges passed to an edge weight function.
+	 */
+	static <N extends Number> PipeFunction<Edge, N> framedWeight(FramedGraph graph,
+			TraversalFunction<TEdge, N> edgeWeight) {
+		return new FramingTraversalFunction<TEdge, N, Edge>(edgeWeight, graph, TEdge.class);
+	}
+
+	/**
+	 * Frame the elements of a path.
+	 */
+	static Path frame(FramedGraph graph, List<Element> elements) {
+		if (elements == null) {
+			return null;
+		}
+		Path path = new Path();
+		for (Element element : elements) {
+			path.add(graph.frameElement(element, element instanceof Vertex ? TVertex.class : TEdge.class));
+		}
+		return path;
+	}
+
+	/**
+	 * @return The vertex at the other end of an edge that was reached by
+	 *         travelling from the vertex in the direction.
+	 */
+	private static Vertex adjacent(Edge edge, Vertex from, Direction direction) {
+		switch (direction) {
+		case OUT:
+			return edge.getVertex(Direction.IN);
+		case IN:
+			return edge.getVertex(Direction.OUT);
+		default:
+			Vertex out = edge.getVertex(Direction.OUT);
+			return out.getId().equals(from.getId()) ? edge.getVertex(Direction.IN) : out;
+		}
+	}
+
+	/**
+	 * One side of a bidirectional breadth first search.
+	 */
+	private static class Search {
+		private final Direction direction;
+		private final String[] labels;
+		private final Map<Object, Edge> parents = new HashMap<>();
+		private final Map<Object, Integer> depths = new HashMap<>();
+		private List<Vertex> frontier = new ArrayList<>();
+		private int depth;
+
+		Search(Vertex root, Direction direction, String[] labels) {
+			this.direction = direction;
+			this.labels = labels;
+			parents.put(root.getId(), null);
+			depths.put(root.getId(), 0);
+			frontier.add(root);
+		}
+
+		/**
+		 * Expand the frontier by one level.
+		 * 
+		 * @return The vertex where the shortest path through the new level
+		 *         meets the other search, or <code>null</code> if the
+		 *         searches have not met.
+		 */
+		Vertex expand(Search other) {
+			List<Vertex> next = new ArrayList<>();
+			Vertex meeting = null;
+			int best = Integer.MAX_VALUE;
+			depth++;
+			for (Vertex vertex : frontier) {
+				for (Edge edge : vertex.getEdges(direction, labels)) {
+					Vertex adjacent = adjacent(edge, vertex, direction);
+					Object id = adjacent.getId();
+					if (parents.containsKey(id)) {
+						continue;
+					}
+					parents.put(id, edge);
+					depths.put(id, depth);
+					next.add(adjacent);
+					// Complete the level rather than stopping at the first
+					// meeting, the other search may reach this level's
+					// vertices at different depths.
+					Integer otherDepth = other.depths.get(id);
+					if (otherDepth != null && otherDepth < best) {
+						best = otherDepth;
+						meeting = adjacent;
+					}
+				}
+			}
+			frontier = next;
+			return meeting;
+		}
+
+		/**
+		 * @return The path from the vertex back to the root of this search.
+		 */
+		List<Element> pathTo(Vertex vertex) {
+			List<Element> path = new ArrayList<>();
+			path.add(vertex);
+			Edge edge;
+			while ((edge = parents.get(vertex.getId())) != null) {
+				vertex = adjacent(edge, vertex, direction.opposite());
+				path.add(edge);
+				path.add(vertex);
+			}
+			return path;
+		}
+	}
+
+	private static class Distance implements Comparable<Distance> {
+		private final Vertex vertex;
+		private final double distance;
+
+		Distance(Vertex vertex, double distance) {
+			this.vertex = vertex;
+			this.distance = distance;
+		}
+
+		@Override
+		public int compareTo(Distance o) {
+			return Double.compare(distance, o.distance);
+		}
+	}
+}
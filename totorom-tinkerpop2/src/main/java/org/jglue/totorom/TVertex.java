@@ -48,6 +48,8 @@ package org.jglue.totorom;
 
 import java.util.Set;
 
+import com.tinkerpop.blueprints.Direction;
+
 /**
  * A framed vertex for use when you don't want to create a new frame class.
  * Typically used in traversals.
@@ -269,4 +271,26 @@ public final class TVertex extends FramedVertex {
 	public <T extends FramedVertex> T reframe(Class<T> kind) {
 		return graph().frameElement(element(), kind);
 	}
+
+	@Override
+	public Path shortestPath(FramedVertex target, int maxDepth, String... labels) {
+		return super.shortestPath(target, maxDepth, labels);
+	}
+
+	@Override
+	public Path shortestPath(FramedVertex target, Direction direction, int maxDepth, String... labels) {
+		return super.shortestPath(target, direction, maxDepth, labels);
+	}
+
+	@Override
+	public Path shortestPath(FramedVertex target, TraversalFunction<TEdge, ? extends Number> edgeWeight,
+			String... labels) {
+		return super.shortestPath(target, edgeWeight, labels);
+	}
+
+	@Override
+	public Path shortestPath(FramedVertex target, Direction direction,
+			TraversalFunction<TEdge, ? extends Number> edgeWeight, String... labels) {
+		return super.shortestPath(target, direction, edgeWeight, labels);
+	}
 }
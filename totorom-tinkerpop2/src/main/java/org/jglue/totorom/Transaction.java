@@ -58,22 +58,95 @@ import com.tinkerpop.blueprints.TransactionalGraph;
  */
 public class Transaction implements AutoCloseable {
 
+	private FramedGraph framedGraph;
 	private TransactionalGraph graph;
+	private IdentityMap identityMap;
+	private boolean propertyCache;
+	private WriteBuffer writeBuffer;
 	private boolean comitted;
 	private boolean rolledBack;
 
-	Transaction(TransactionalGraph graph) {
+	Transaction(FramedGraph framedGraph, TransactionalGraph graph) {
+		this.framedGraph = framedGraph;
 		this.graph = graph;
 
 	}
 
+	/**
+	 * Reuse frames for the rest of this transaction. Each time an element is
+	 * framed as a given type on this thread the same frame instance is
+	 * returned, along with any state it holds. The map is cleared on commit
+	 * or rollback and discarded when the transaction is closed.
+	 * <p>
+	 * The map belongs to this thread, so frames created by parallel
+	 * traversals on other threads are not reused.
+	 * 
+	 * @param maxSize
+	 *            The maximum number of frames to keep. The least recently
+	 *            used frames are discarded first.
+	 * @return this
+	 */
+	public Transaction enableIdentityMap(int maxSize) {
+		identityMap = new IdentityMap(maxSize);
+		framedGraph.setIdentityMap(identityMap);
+		return this;
+	}
+
+	/**
+	 * Cache property values in frames created on this thread for the rest of
+	 * this transaction. Values are remembered per frame until they are set
+	 * through the frame, so changes made to the graph by other means are not
+	 * seen. Combine with {@link #enableIdentityMap(int)} to share cached
+	 * values between repeated encounters of the same element.
+	 * 
+	 * @return this
+	 */
+	public Transaction enablePropertyCache() {
+		propertyCache = true;
+		framedGraph.setPropertyCacheEnabled(true);
+		return this;
+	}
+
+	/**
+	 * Buffer property writes made through frames on this thread until the
+	 * transaction is committed. Repeated writes to the same property are
+	 * coalesced so that only the last value is written, and reads through
+	 * frames see the buffered values. Traversals and other access to the
+	 * underlying graph do not see buffered writes until they are flushed.
+	 * <p>
+	 * The buffer belongs to this thread. Frames created by parallel traversals
+	 * on other threads write straight to the graph, and parallel terminal
+	 * operations fail while writes are pending. Call {@link #flush()} before
+	 * running them.
+	 * 
+	 * @return this
+	 */
+	public Transaction enableWriteBehind() {
+		writeBuffer = new WriteBuffer();
+		framedGraph.setWriteBuffer(writeBuffer);
+		return this;
+	}
+
+	/**
+	 * Write buffered property changes to the graph without committing.
+	 */
+	public void flush() {
+		if (writeBuffer != null) {
+			writeBuffer.flush();
+		}
+	}
+
 	/**
 	 * Commit the transaction.
 	 */
 	public void commit() {
+		flush();
 		if (graph != null) {
 			graph.commit();
 		}
+		if (identityMap != null) {
+			identityMap.clear();
+		}
 		comitted = true;
 	}
 
@@ -81,9 +154,15 @@ public class Transaction implements AutoCloseable {
 	 * Rollback the transaction.
 	 */
 	public void rollback() {
+		if (writeBuffer != null) {
+			writeBuffer.clear();
+		}
 		if (graph != null) {
 			graph.rollback();
 		}
+		if (identityMap != null) {
+			identityMap.clear();
+		}
 		rolledBack = true;
 	}
 
@@ -97,6 +176,15 @@ public class Transaction implements AutoCloseable {
 		if (!comitted && !rolledBack) {
 			rollback();
 		}
+		if (identityMap != null && framedGraph.getIdentityMap() == identityMap) {
+			framedGraph.setIdentityMap(null);
+		}
+		if (propertyCache) {
+			framedGraph.setPropertyCacheEnabled(false);
+		}
+		if (writeBuffer != null && framedGraph.getWriteBuffer() == writeBuffer) {
+			framedGraph.setWriteBuffer(null);
+		}
 
 	}
 
@@ -129,6 +129,36 @@ public interface Traversal<T, Cap, SideEffect, Mark> extends Iterator<T>, Iterab
 	 */
 	public void iterate();
 
+	/**
+	 * Completely drain the pipeline, calling the function with each element
+	 * framed as the specified kind. Rather than allocating a new frame per
+	 * element a single frame instance per resolved frame type is rebound to
+	 * each element in turn, which avoids creating garbage on long scans.
+	 * <p>
+	 * The frame passed to the function is only valid for the duration of that
+	 * call. It must not be stored, added to a collection or used once the
+	 * function has returned; use <code>next(Class)</code> or
+	 * <code>toList(Class)</code> to obtain frames that may be kept.
+	 * Once iteration finishes the frames are detached from the graph and any
+	 * further use of them will fail. Frames holding their own state in fields
+	 * will see that state carry over from one element to the next.
+	 * 
+	 * @param kind
+	 *            The kind of frame to use. The pipeline must emit elements.
+	 * @param function
+	 *            The function to call for each element.
+	 */
+	public <N extends FramedElement> void forEachFramed(Class<N> kind, SideEffectFunction<N> function);
+
+	/**
+	 * Iterate the results without framing them, so that they can be framed
+	 * later, for instance on another thread. Vertices and edges are framed as
+	 * {@link TVertex} and {@link TEdge}.
+	 * 
+	 * @return The unframed results.
+	 */
+	public UnframedResults<T> unframed();
+
 	/**
 	 * Emit the properties of the incoming element as a java.util.Map.
 	 *
@@ -621,6 +651,33 @@ public interface Traversal<T, Cap, SideEffect, Mark> extends Iterator<T>, Iterab
 	 */
 	public abstract Traversal<T, ?, ?, Mark> order(Comparator<T> compareFunction);
 
+	/**
+	 * This step will sort the objects in the stream in ascending order of a
+	 * key. The key is computed once for each object, so this is cheaper than
+	 * {@link #order(Comparator)} when the comparison reads properties. Null
+	 * keys are sorted last.
+	 * 
+	 * @param keyFunction
+	 *            the function that computes the sort key of an object
+	 * @return the extended Pipeline
+	 */
+	public abstract Traversal<T, ?, ?, Mark> orderBy(TraversalFunction<T, ? extends Comparable<?>> keyFunction);
+
+	/**
+	 * This step will sort the objects in the stream by a key. The key is
+	 * computed once for each object, so this is cheaper than
+	 * {@link #order(Comparator)} when the comparison reads properties. Null
+	 * keys are sorted last.
+	 * 
+	 * @param keyFunction
+	 *            the function that computes the sort key of an object
+	 * @param order
+	 *            increment or decrement
+	 * @return the extended Pipeline
+	 */
+	public abstract Traversal<T, ?, ?, Mark> orderBy(TraversalFunction<T, ? extends Comparable<?>> keyFunction,
+			TransformPipe.Order order);
+
 	/**
 	 * Wrap the previous step in an AsPipe. Useful for naming steps and is used
 	 * in conjunction with various other steps including: loop, select, back,
@@ -746,6 +803,9 @@ public interface Traversal<T, Cap, SideEffect, Mark> extends Iterator<T>, Iterab
 	/**
 	 * Given an input, the provided function is computed on the input and the
 	 * output of that function is emitted.
+	 * <p>
+	 * {@link TraversalFunctions#identity()} adds no step to the pipeline, so
+	 * unlike other functions it does not add an element to {@link #path()}.
 	 *
 	 * @param function
 	 *            the transformation function of the pipe
@@ -793,6 +853,60 @@ public interface Traversal<T, Cap, SideEffect, Mark> extends Iterator<T>, Iterab
 	 */
 	public abstract long count();
 
+	/**
+	 * Sum a property of the elements in the pipeline as longs. The property
+	 * is read from the underlying elements without framing them, so writes
+	 * that are still held in a write behind buffer are not seen. Elements
+	 * that do not have a number for the key, and nulls such as those for
+	 * missing ids, are skipped. The pipeline must emit vertices or edges.
+	 *
+	 * @param key
+	 *            The property key.
+	 * @return The sum, or 0 if there are no numbers.
+	 * @throws IllegalArgumentException
+	 *             If the pipeline emits an object that is not a vertex or
+	 *             edge, for instance a property value.
+	 */
+	public abstract long sumLong(String key);
+
+	/**
+	 * Sum a property of the elements in the pipeline as doubles. The property
+	 * is read in the same way as {@link #sumLong(String)}.
+	 *
+	 * @param key
+	 *            The property key.
+	 * @return The sum, or 0 if there are no numbers.
+	 */
+	public abstract double sumDouble(String key);
+
+	/**
+	 * Gather the count, minimum, maximum, mean and variance of a property of
+	 * the elements in the pipeline in a single pass. The property is read in
+	 * the same way as {@link #sumLong(String)}.
+	 *
+	 * @param key
+	 *            The property key.
+	 * @return The stats.
+	 */
+	public abstract NumericStats stats(String key);
+
+	/**
+	 * Count the elements in the pipeline by the bucket that a property falls
+	 * in to. The property is read in the same way as {@link #sumLong(String)}.
+	 * <p>
+	 * Bucket 0 holds values below the first bound, bucket <code>i</code>
+	 * holds values from bound <code>i - 1</code> up to but not including
+	 * bound <code>i</code> and the last bucket holds values from the last
+	 * bound up.
+	 *
+	 * @param key
+	 *            The property key.
+	 * @param bounds
+	 *            The bucket bounds in increasing order.
+	 * @return The counts, one more than the number of bounds.
+	 */
+	public abstract long[] histogram(String key, double... bounds);
+
 	/**
 	 * Return the next object in the pipeline.
 	 *
@@ -65,7 +65,7 @@ import com.google.common.base.Function;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
+import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Graph;
@@ -73,21 +73,54 @@ import com.tinkerpop.blueprints.Predicate;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.gremlin.Tokens;
 import com.tinkerpop.gremlin.java.GremlinPipeline;
+import com.tinkerpop.pipes.Pipe;
+import com.tinkerpop.pipes.PipeFunction;
 import com.tinkerpop.pipes.branch.LoopPipe;
 import com.tinkerpop.pipes.sideeffect.SideEffectPipe;
 import com.tinkerpop.pipes.transform.TransformPipe.Order;
 import com.tinkerpop.pipes.util.FluentUtility;
-import com.tinkerpop.pipes.util.structures.Pair;
 import com.tinkerpop.pipes.util.structures.Table;
 import com.tinkerpop.pipes.util.structures.Tree;
 
 @SuppressWarnings("rawtypes")
 abstract class TraversalBase<T, Cap, SideEffect, Mark> implements Traversal<T, Cap, SideEffect, Mark> {
 
+	/**
+	 * Lists returned by <code>next(int)</code> are presized up to this limit
+	 * so that a large requested amount doesn't allocate a huge empty list.
+	 */
+	static final int PRESIZE_LIMIT = 1024;
+
 	protected abstract FramedGraph graph();
 
+	private static final PipeFunction<Object, Boolean> NOT_NULL = new PipeFunction<Object, Boolean>() {
+
+		@Override
+		public Boolean compute(Object argument) {
+			return argument != null;
+		}
+	};
+
 	protected abstract TotoromGremlinPipeline pipeline();
 
+	/**
+	 * Get the pipeline behind a traversal that was built by a user supplied
+	 * function. Single hop traversals do not have a pipeline until one is
+	 * required so it is created here.
+	 * 
+	 * @param traversal
+	 *            The traversal to get the pipeline for.
+	 * @return The gremlin pipeline.
+	 */
+	static TotoromGremlinPipeline pipelineOf(Object traversal) {
+		if (traversal instanceof SimpleVertexTraversal) {
+			traversal = ((SimpleVertexTraversal) traversal).delegate();
+		} else if (traversal instanceof SimpleEdgeTraversal) {
+			traversal = ((SimpleEdgeTraversal) traversal).delegate();
+		}
+		return ((TraversalBase) traversal).pipeline();
+	}
+
 	@Override
 	public VertexTraversal V() {
 		pipeline().V();
@@ -115,6 +148,26 @@ abstract class TraversalBase<T, Cap, SideEffect, Mark> implements Traversal<T, C
 		return pipeline().count();
 	}
 
+	@Override
+	public long sumLong(String key) {
+		return Aggregations.sumLong(pipeline(), key);
+	}
+
+	@Override
+	public double sumDouble(String key) {
+		return Aggregations.sumDouble(pipeline(), key);
+	}
+
+	@Override
+	public NumericStats stats(String key) {
+		return Aggregations.stats(pipeline(), key);
+	}
+
+	@Override
+	public long[] histogram(String key, double... bounds) {
+		return Aggregations.histogram(pipeline(), key, bounds);
+	}
+
 	@Override
 	public Traversal as(String name) {
 		pipeline().as(name);
@@ -126,6 +179,16 @@ abstract class TraversalBase<T, Cap, SideEffect, Mark> implements Traversal<T, C
 		pipeline().iterate();
 	}
 
+	@Override
+	public void forEachFramed(Class kind, SideEffectFunction function) {
+		FlyweightFramer.forEach(graph(), pipeline(), kind, function);
+	}
+
+	@Override
+	public UnframedResults<T> unframed() {
+		return new UnframedResults<T>(graph(), pipeline(), null);
+	}
+
 	public Traversal has(String key) {
 		pipeline().has(key);
 		return this;
@@ -228,7 +291,14 @@ abstract class TraversalBase<T, Cap, SideEffect, Mark> implements Traversal<T, C
 
 	@Override
 	public Traversal filter(TraversalFunction filterFunction) {
-		pipeline().filter(new FramingTraversalFunction(filterFunction, graph()));
+		TotoromGremlinPipeline pipeline = pipeline();
+		Pipe previous = pipeline.size() == 0 ? null : FluentUtility.getPreviousPipe(pipeline);
+		if (previous instanceof FramingFilterPipe) {
+			// Fuse with the previous filter so that elements are framed once.
+			((FramingFilterPipe) previous).addFilter(filterFunction);
+		} else {
+			pipeline.add(new FramingFilterPipe(graph(), filterFunction));
+		}
 		return this;
 	}
 
@@ -240,7 +310,16 @@ abstract class TraversalBase<T, Cap, SideEffect, Mark> implements Traversal<T, C
 
 	@Override
 	public Traversal range(int low, int high) {
-		pipeline().range(low, high);
+		TotoromGremlinPipeline pipeline = pipeline();
+		Pipe previous = pipeline.size() == 0 ? null : FluentUtility.getPreviousPipe(pipeline);
+		if (previous instanceof FramingOrderPipe && high >= 0 && high < Integer.MAX_VALUE) {
+			// Only the leading elements of the sort are needed.
+			((FramingOrderPipe) previous).bound(high + 1);
+			if (low <= 0) {
+				return this;
+			}
+		}
+		pipeline.range(low, high);
 		return this;
 	}
 
@@ -490,15 +569,19 @@ abstract class TraversalBase<T, Cap, SideEffect, Mark> implements Traversal<T, C
 	}
 
 	@Override
-	public Traversal order(final Comparator compareFunction) {
-		final FramingComparator framingComparator = new FramingComparator(compareFunction, graph());
-		pipeline().order(new TraversalFunction<Pair<Object, Object>, Integer>() {
+	public Traversal order(Comparator compareFunction) {
+		pipeline().add(new FramingOrderPipe(graph(), compareFunction));
+		return this;
+	}
 
-			@Override
-			public Integer compute(Pair<Object, Object> argument) {
-				return framingComparator.compare(argument.getA(), argument.getB());
-			}
-		});
+	@Override
+	public Traversal orderBy(TraversalFunction keyFunction) {
+		return orderBy(keyFunction, Order.INCR);
+	}
+
+	@Override
+	public Traversal orderBy(TraversalFunction keyFunction, Order order) {
+		pipeline().add(new FramingOrderPipe(graph(), keyFunction, order));
 		return this;
 	}
 
@@ -568,7 +651,9 @@ abstract class TraversalBase<T, Cap, SideEffect, Mark> implements Traversal<T, C
 
 	@Override
 	public Traversal transform(TraversalFunction function) {
-		pipeline().transform(new FramingTraversalFunction(function, graph()));
+		if (function != TraversalFunctions.identity()) {
+			pipeline().transform(new FramingTraversalFunction(function, graph()));
+		}
 		return castToTraversal();
 	}
 
@@ -580,42 +665,52 @@ abstract class TraversalBase<T, Cap, SideEffect, Mark> implements Traversal<T, C
 
 	@Override
 	public List next(int number) {
-		return Lists.transform(pipeline().next(number), new Function() {
-
-			public Object apply(Object e) {
-				if (e instanceof Edge) {
-					return graph().frameElement((Element) e, TEdge.class);
-				} else if (e instanceof Vertex) {
-					return graph().frameElement((Element) e, TVertex.class);
-				}
-				return e;
-			}
-		});
+		List result = new ArrayList(Math.min(number, PRESIZE_LIMIT));
+		Iterator pipeline = pipeline();
+		while (result.size() < number && pipeline.hasNext()) {
+			result.add(frame(pipeline.next()));
+		}
+		return result;
 
 	}
 
 	@Override
 	public List toList() {
-
-		return Lists.transform(pipeline().toList(), new Function() {
-
-			public Object apply(Object e) {
-				if (e instanceof Edge) {
-					return graph().frameElement((Element) e, TEdge.class);
-				} else if (e instanceof Vertex) {
-					return graph().frameElement((Element) e, TVertex.class);
-				}
-				return e;
-			}
-		});
+		List result = new ArrayList();
+		Iterator pipeline = pipeline();
+		while (pipeline.hasNext()) {
+			result.add(frame(pipeline.next()));
+		}
+		return result;
 
 	}
 	
 	@Override
 	public Set toSet() {
+		Set seen = new HashSet();
+		Set result = new HashSet();
+		Iterator pipeline = pipeline();
+		while (pipeline.hasNext()) {
+			Object e = pipeline.next();
+			if (seen.add(e)) {
+				result.add(frame(e));
+			}
+		}
+		return result;
 
-		return Sets.newHashSet(toList());
+	}
 
+	/**
+	 * Frame vertices and edges as {@link TVertex} and {@link TEdge}, leaving
+	 * other objects untouched.
+	 */
+	private Object frame(Object e) {
+		if (e instanceof Edge) {
+			return graph().frameElement((Element) e, TEdge.class);
+		} else if (e instanceof Vertex) {
+			return graph().frameElement((Element) e, TVertex.class);
+		}
+		return e;
 	}
 
 	@Override
@@ -689,11 +784,7 @@ abstract class TraversalBase<T, Cap, SideEffect, Mark> implements Traversal<T, C
 		return Iterators.transform(pipeline(), new Function() {
 
 			public Object apply(Object e) {
-				if (e instanceof Element) {
-					return graph().frameElement((Element) e, TVertex.class);
-				}
-
-				return e;
+				return frame(e);
 			}
 		});
 	}
@@ -798,7 +889,7 @@ abstract class TraversalBase<T, Cap, SideEffect, Mark> implements Traversal<T, C
 	}
 
 	public Traversal loop(TraversalFunction input) {
-		GremlinPipeline pipeline = ((TraversalBase) input.compute(new TVertex())).pipeline();
+		GremlinPipeline pipeline = pipelineOf(input.compute(new TVertex()));
 		pipeline().add(new LoopPipe(pipeline, LoopPipe.createTrueFunction(), null));
 
 		return this;
@@ -806,13 +897,56 @@ abstract class TraversalBase<T, Cap, SideEffect, Mark> implements Traversal<T, C
 	}
 
 	public Traversal loop(TraversalFunction input, final int depth) {
-		GremlinPipeline pipeline = ((TraversalBase) input.compute(new TVertex())).pipeline();
+		GremlinPipeline pipeline = pipelineOf(input.compute(new TVertex()));
 		pipeline().add(new LoopPipe(pipeline, LoopPipe.createLoopsFunction(depth), null));
 
 		return this;
 
 	}
 
+	@SuppressWarnings("unchecked")
+	public Traversal shortestPath(final FramedVertex target, final Direction direction, final int maxDepth,
+			final String... labels) {
+		pipeline().transform(new PipeFunction<Vertex, Path>() {
+
+			@Override
+			public Path compute(Vertex source) {
+				return ShortestPaths.frame(graph(),
+						ShortestPaths.unweighted(source, target.element(), direction, maxDepth, labels));
+			}
+		}).filter(NOT_NULL);
+		return castToTraversal();
+	}
+
+	@SuppressWarnings("unchecked")
+	public Traversal shortestPath(final FramedVertex target, final Direction direction,
+			TraversalFunction<TEdge, ? extends Number> edgeWeight, final String... labels) {
+		final PipeFunction<Edge, ? extends Number> weight = ShortestPaths.framedWeight(graph(), edgeWeight);
+		pipeline().transform(new PipeFunction<Vertex, Path>() {
+
+			@Override
+			public Path compute(Vertex source) {
+				return ShortestPaths.frame(graph(),
+						ShortestPaths.weighted(source, target.element(), direction, weight, labels));
+			}
+		}).filter(NOT_NULL);
+		return castToTraversal();
+	}
+
+	public Traversal breadthFirst(TraversalFunction<TVertex, VertexTraversal<?, ?, ?>> input, int depth) {
+		return breadthFirst(input, depth, true, 1);
+	}
+
+	public Traversal breadthFirst(TraversalFunction<TVertex, VertexTraversal<?, ?, ?>> input, int depth, boolean emitAll) {
+		return breadthFirst(input, depth, emitAll, 1);
+	}
+
+	public Traversal breadthFirst(TraversalFunction<TVertex, VertexTraversal<?, ?, ?>> input, int depth, boolean emitAll,
+			int partitions) {
+		pipeline().add(new BreadthFirstPipe(graph(), input, depth, emitAll, partitions));
+		return this;
+	}
+
 	@Override
 	public Traversal<T, ?, ?, Mark> limit(int limit) {
 		return range(0, limit - 1);
@@ -47,13 +47,21 @@
 package org.jglue.totorom;
 
 public class TraversalFunctions {
-	public static <A> TraversalFunction<A, A> identity() {
-		return new TraversalFunction<A, A>() {
+	private static final TraversalFunction IDENTITY = new TraversalFunction() {
+
+		@Override
+		public Object compute(Object argument) {
+			return argument;
+		}
+	};
 
-			@Override
-			public A compute(A argument) {
-				return argument;
-			}
-		};
+	/**
+	 * The identity function is a shared instance so that traversals can
+	 * recognise it and skip the step altogether.
+	 * 
+	 * @return A function that returns its argument.
+	 */
+	public static <A> TraversalFunction<A, A> identity() {
+		return IDENTITY;
 	}
 }
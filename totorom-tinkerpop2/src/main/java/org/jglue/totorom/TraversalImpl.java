@@ -49,6 +49,7 @@ package org.jglue.totorom;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import org.jglue.totorom.internal.TotoromGremlinPipeline;
 
@@ -66,13 +67,22 @@ class TraversalImpl extends TraversalBase implements Traversal {
 
 	private FramedGraph graph;
 	private TotoromGremlinPipeline pipeline;
-	private Deque<MarkId> marks = new ArrayDeque<>();
+	private Deque<MarkId> marks;
 	private int markId = 0;
 
+	// The views are created on demand as most traversals only ever use one
+	// of them.
+	private SplitTraversal splitTraversal;
+	private EdgeTraversal edgeTraversal;
+	private VertexTraversal vertexTraversal;
+
 	public MarkId pushMark(Traversal<?, ?, ?, ?> traversal) {
 		MarkId mark = new MarkId();
 		mark.id = "traversalMark" + markId++;
 		mark.traversal = traversal;
+		if (marks == null) {
+			marks = new ArrayDeque<>();
+		}
 		marks.push(mark);
 
 		return mark;
@@ -86,10 +96,13 @@ class TraversalImpl extends TraversalBase implements Traversal {
 
 	@Override
 	public MarkId popMark() {
+		if (marks == null) {
+			throw new NoSuchElementException();
+		}
 		return marks.pop();
 	}
 
-	private SplitTraversal splitTraversal = new SplitTraversal() {
+	private class SplitView implements SplitTraversal {
 
 		@Override
 		public Traversal exhaustMerge() {
@@ -102,18 +115,18 @@ class TraversalImpl extends TraversalBase implements Traversal {
 			pipeline().fairMerge();
 			return castToTraversal();
 		}
-	};
+	}
 
-	private EdgeTraversal edgeTraversal = new EdgeTraversalImpl() {
+	private class EdgeView extends EdgeTraversalImpl {
 
 		@Override
 		public VertexTraversal castToVertices() {
-			return vertexTraversal;
+			return TraversalImpl.this.castToVertices();
 		}
 
 		@Override
 		public EdgeTraversal castToEdges() {
-			return edgeTraversal;
+			return this;
 		}
 
 		@Override
@@ -140,18 +153,19 @@ class TraversalImpl extends TraversalBase implements Traversal {
 		};
 
 		public SplitTraversal castToSplit() {
-			return splitTraversal;
+			return TraversalImpl.this.castToSplit();
 		};
-	};
-	private VertexTraversal vertexTraversal = new VertexTraversalImpl() {
+	}
+
+	private class VertexView extends VertexTraversalImpl {
 		@Override
 		public VertexTraversal castToVertices() {
-			return vertexTraversal;
+			return this;
 		}
 
 		@Override
 		public EdgeTraversal castToEdges() {
-			return edgeTraversal;
+			return TraversalImpl.this.castToEdges();
 		}
 
 		@Override
@@ -178,9 +192,9 @@ class TraversalImpl extends TraversalBase implements Traversal {
 		};
 
 		public SplitTraversal castToSplit() {
-			return splitTraversal;
+			return TraversalImpl.this.castToSplit();
 		};
-	};
+	}
 
 	private TraversalImpl(FramedGraph graph, TotoromGremlinPipeline pipeline) {
 		this.graph = graph;
@@ -204,6 +218,9 @@ class TraversalImpl extends TraversalBase implements Traversal {
 	 * @return Cast the traversal to a {@link VertexTraversal}
 	 */
 	public VertexTraversal castToVertices() {
+		if (vertexTraversal == null) {
+			vertexTraversal = new VertexView();
+		}
 		return vertexTraversal;
 	}
 
@@ -211,6 +228,9 @@ class TraversalImpl extends TraversalBase implements Traversal {
 	 * @return Cast the traversal to a {@link EdgeTraversal}
 	 */
 	public EdgeTraversal castToEdges() {
+		if (edgeTraversal == null) {
+			edgeTraversal = new EdgeView();
+		}
 		return edgeTraversal;
 	}
 
@@ -233,6 +253,9 @@ class TraversalImpl extends TraversalBase implements Traversal {
 
 	@Override
 	protected SplitTraversal castToSplit() {
+		if (splitTraversal == null) {
+			splitTraversal = new SplitView();
+		}
 		return splitTraversal;
 	}
 
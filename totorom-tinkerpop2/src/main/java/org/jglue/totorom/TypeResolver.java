@@ -96,28 +96,8 @@ public interface TypeResolver {
 	/**
 	 * This type resolver will use the Java class stored in the 'java_class' on
 	 * the element.
+	 * 
+	 * @see JavaTypeResolver
 	 */
-	public static final TypeResolver Java = new TypeResolver() {
-		@SuppressWarnings("unchecked")
-		@Override
-		public <T extends FramedElement> Class<T> resolve(Element element, Class<T> kind) {
-			String clazz = element.getProperty("java_class");
-			if (clazz != null) {
-				try {
-					return (Class<T>) Class.forName(clazz);
-				} catch (ClassNotFoundException e) {
-					throw new RuntimeException("The class " + clazz + " cannot be found");
-				}
-			}
-			return kind;
-		}
-
-		@Override
-		public <T extends FramedElement> void init(Element element, Class<T> kind) {
-			String clazz = element.getProperty("java_class");
-			if (clazz == null) {
-				element.setProperty("java_class", kind.getName());
-			}
-		}
-	};
+	public static final TypeResolver Java = new JavaTypeResolver();
 }
@@ -0,0 +1,130 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom;
+
+import java.util.Iterator;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * The results of a traversal before they are framed. Results can be handed
+ * off, for instance to other threads, and framed with {@link #frame(Object)}
+ * where they are consumed. The traversal is drained by the results and must
+ * not be used afterwards.
+ *
+ * @see Traversal#unframed()
+ * @see VertexTraversal#unframed(Class)
+ * @see EdgeTraversal#unframed(Class)
+ * @author Bryn Cooke (http://jglue.org)
+ */
+public final class UnframedResults<T> implements Iterator<Object> {
+
+	private final FramedGraph graph;
+	private final Iterator<?> results;
+	private final Class<? extends FramedElement> kind;
+
+	/**
+	 * @param graph
+	 *            The graph to frame the results with.
+	 * @param results
+	 *            The raw results.
+	 * @param kind
+	 *            The kind of frame, or <code>null</code> to frame vertices
+	 *            and edges as {@link TVertex} and {@link TEdge}.
+	 */
+	UnframedResults(FramedGraph graph, Iterator<?> results, Class<? extends FramedElement> kind) {
+		this.graph = graph;
+		this.results = results;
+		this.kind = kind;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return results.hasNext();
+	}
+
+	/**
+	 * @return The next result, not yet framed.
+	 */
+	@Override
+	public Object next() {
+		return results.next();
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Frame a result. Frames are created with the identity map and property
+	 * cache of the calling thread, and write through the write buffer of the
+	 * calling thread, so results framed on another thread do not take part in
+	 * the session state of the thread that created the traversal.
+	 *
+	 * @param result
+	 *            A result returned by {@link #next()}.
+	 * @return The framed result.
+	 */
+	public T frame(Object result) {
+		Object framed;
+		if (kind != null) {
+			framed = graph.frameElement((Element) result, kind);
+		} else if (result instanceof Edge) {
+			framed = graph.frameElement((Element) result, TEdge.class);
+		} else if (result instanceof Vertex) {
+			framed = graph.frameElement((Element) result, TVertex.class);
+		} else {
+			framed = result;
+		}
+		@SuppressWarnings("unchecked")
+		T cast = (T) framed;
+		return cast;
+	}
+}
@@ -53,6 +53,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Predicate;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.gremlin.Tokens;
@@ -335,17 +336,41 @@ public interface VertexTraversal<Cap, SideEffect, Mark> extends Traversal<TVerte
 	public <N extends FramedVertex> Iterable<N> frame(Class<N> kind);
 
 	/**
-	 * Return a list of all the objects in the pipeline.
+	 * Iterate the vertices without framing them, so that they can be framed
+	 * later, for instance on another thread.
+	 * 
+	 * @param kind
+	 *            The kind of framed elements to return.
+	 * @return The unframed vertices.
+	 */
+	public <N extends FramedVertex> UnframedResults<N> unframed(Class<N> kind);
+
+	/**
+	 * Return a list of all the objects in the pipeline. Each element is framed
+	 * once when the list is created.
 	 * 
 	 * @param kind
 	 *            The kind of framed elements to return.
 	 * @return a list of all the objects
 	 */
 	public <N extends FramedVertex> List<N> toList(Class<N> kind);
+
+	/**
+	 * Return a list of all the objects in the pipeline. Each element is framed
+	 * once when the list is created.
+	 * 
+	 * @param kind
+	 *            The kind of framed elements to return.
+	 * @param expectedSize
+	 *            The expected number of objects, used to presize the list.
+	 * @return a list of all the objects
+	 */
+	public <N extends FramedVertex> List<N> toList(Class<N> kind, int expectedSize);
 	
 	
 	/**
-	 * Return a set of all the objects in the pipeline.
+	 * Return a set of all the objects in the pipeline. Elements are
+	 * deduplicated before they are framed.
 	 * 
 	 * @param kind
 	 *            The kind of framed elements to return.
@@ -621,6 +646,13 @@ public interface VertexTraversal<Cap, SideEffect, Mark> extends Traversal<TVerte
 	@Override
 	public abstract VertexTraversal<?, ?, Mark> order(Comparator<TVertex> compareFunction);
 
+	@Override
+	public abstract VertexTraversal<?, ?, Mark> orderBy(TraversalFunction<TVertex, ? extends Comparable<?>> keyFunction);
+
+	@Override
+	public abstract VertexTraversal<?, ?, Mark> orderBy(TraversalFunction<TVertex, ? extends Comparable<?>> keyFunction,
+			TransformPipe.Order order);
+
 	@Override
 	public abstract VertexTraversal<?, ?, Mark> order(TransformPipe.Order order);
 
@@ -745,6 +777,80 @@ public interface VertexTraversal<Cap, SideEffect, Mark> extends Traversal<TVerte
 	 *
 	 * @param depth The maximum depth to loop to
 	 * @return the extended Pipeline
+	 * @see #breadthFirst(TraversalFunction, int)
 	 */
 	public abstract <T> VertexTraversal<?, ?, Mark> loop(TraversalFunction<TVertex, VertexTraversal<?, ?, ?>> traversal, int depth);
+
+	/**
+	 * Emits a path with the fewest edges from each vertex to the target
+	 * vertex. Vertices with no path of at most maxDepth edges are dropped.
+	 *
+	 * @param target The vertex to find paths to
+	 * @param direction The direction of the edges to follow
+	 * @param maxDepth The maximum number of edges in a path
+	 * @param labels The labels of the edges to follow, or none for all edges
+	 * @return the extended Pipeline
+	 * @see FramedVertex#shortestPath(FramedVertex, Direction, int, String...)
+	 */
+	public abstract Traversal<Path, ?, ?, Mark> shortestPath(FramedVertex target, Direction direction, int maxDepth, String... labels);
+
+	/**
+	 * Emits a path with the least total weight from each vertex to the target
+	 * vertex. Vertices that can't reach the target are dropped.
+	 *
+	 * @param target The vertex to find paths to
+	 * @param direction The direction of the edges to follow
+	 * @param edgeWeight The weight of each edge, which must not be negative
+	 * @param labels The labels of the edges to follow, or none for all edges
+	 * @return the extended Pipeline
+	 * @see FramedVertex#shortestPath(FramedVertex, Direction, TraversalFunction, String...)
+	 */
+	public abstract Traversal<Path, ?, ?, Mark> shortestPath(FramedVertex target, Direction direction,
+			TraversalFunction<TEdge, ? extends Number> edgeWeight, String... labels);
+
+	/**
+	 * Expands the supplied traversal breadth first up to a maximum depth,
+	 * emitting each vertex reached once. Unlike {@link #loop(TraversalFunction, int)}
+	 * each level is computed for the whole frontier at once and vertices that
+	 * have already been reached, including the starting vertices, are not
+	 * expanded again. This keeps k-hop expansions on cyclic graphs linear in
+	 * the number of vertices reached.
+	 * <p>
+	 * Also unlike {@link #loop(TraversalFunction, int)}, the path of an emitted
+	 * vertex starts at that vertex rather than at the vertex the expansion
+	 * started from.
+	 *
+	 * @param traversal The traversal applied at each level
+	 * @param depth The maximum depth to expand to
+	 * @return the extended Pipeline
+	 */
+	public abstract VertexTraversal<?, ?, Mark> breadthFirst(TraversalFunction<TVertex, VertexTraversal<?, ?, ?>> traversal, int depth);
+
+	/**
+	 * Expands the supplied traversal breadth first up to a maximum depth.
+	 *
+	 * @param traversal The traversal applied at each level
+	 * @param depth The maximum depth to expand to
+	 * @param emitAll Emit the vertices reached at every level rather than only those first reached at the maximum depth
+	 * @return the extended Pipeline
+	 * @see #breadthFirst(TraversalFunction, int)
+	 */
+	public abstract VertexTraversal<?, ?, Mark> breadthFirst(TraversalFunction<TVertex, VertexTraversal<?, ?, ?>> traversal, int depth, boolean emitAll);
+
+	/**
+	 * Expands the supplied traversal breadth first up to a maximum depth.
+	 * Large frontiers are split in to chunks that are expanded in parallel on
+	 * the graph's shared pool, which requires that the underlying graph
+	 * supports reads from multiple threads. The output is the same as when
+	 * expanding on a single thread.
+	 *
+	 * @param traversal The traversal applied at each level
+	 * @param depth The maximum depth to expand to
+	 * @param emitAll Emit the vertices reached at every level rather than only those first reached at the maximum depth
+	 * @param partitions The maximum number of chunks to expand at once
+	 * @see FramedGraph#setParallelPool(java.util.concurrent.ForkJoinPool)
+	 * @return the extended Pipeline
+	 * @see #breadthFirst(TraversalFunction, int)
+	 */
+	public abstract VertexTraversal<?, ?, Mark> breadthFirst(TraversalFunction<TVertex, VertexTraversal<?, ?, ?>> traversal, int depth, boolean emitAll, int partitions);
 }
\ No newline at end of file
@@ -57,8 +57,9 @@ import java.util.Set;
 import com.google.common.base.Function;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
+import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Predicate;
 import com.tinkerpop.blueprints.Vertex;
@@ -254,7 +255,7 @@ abstract class VertexTraversalImpl extends TraversalBase implements VertexTraver
 
 			@Override
 			public Pipe apply(TraversalFunction input) {
-				return ((TraversalBase) input.compute(new TVertex())).pipeline();
+				return TraversalBase.pipelineOf(input.compute(new TVertex()));
 			}
 		});
 		pipeline().and(extractedPipes.toArray(new Pipe[extractedPipes.size()]));
@@ -267,7 +268,7 @@ abstract class VertexTraversalImpl extends TraversalBase implements VertexTraver
 
 			@Override
 			public Pipe apply(TraversalFunction input) {
-				return ((TraversalBase) input.compute(new TVertex())).pipeline();
+				return TraversalBase.pipelineOf(input.compute(new TVertex()));
 			}
 		});
 		pipeline().or(extractedPipes.toArray(new Pipe[extractedPipes.size()]));
@@ -289,6 +290,16 @@ abstract class VertexTraversalImpl extends TraversalBase implements VertexTraver
 		return (VertexTraversal) super.order(compareFunction);
 	}
 
+	@Override
+	public VertexTraversal orderBy(TraversalFunction keyFunction) {
+		return (VertexTraversal) super.orderBy(keyFunction);
+	}
+
+	@Override
+	public VertexTraversal orderBy(TraversalFunction keyFunction, Order order) {
+		return (VertexTraversal) super.orderBy(keyFunction, order);
+	}
+
 	@Override
 	public VertexTraversal order(T order) {
 		return (VertexTraversal) super.order(order);
@@ -425,12 +436,7 @@ abstract class VertexTraversalImpl extends TraversalBase implements VertexTraver
 
 	@Override
 	public List next(int amount, final Class kind) {
-		return Lists.transform(pipeline().next(amount), new Function() {
-
-			public Object apply(Object e) {
-				return graph().frameElement((Element) e, kind);
-			}
-		});
+		return graph().frameList(Iterators.limit(pipeline(), amount), kind, Math.min(amount, PRESIZE_LIMIT));
 	}
 
 	@Override
@@ -443,19 +449,25 @@ abstract class VertexTraversalImpl extends TraversalBase implements VertexTraver
 		});
 	}
 
+	@SuppressWarnings({ "rawtypes", "unchecked" })
 	@Override
-	public List toList(final Class kind) {
-		return Lists.transform(pipeline().toList(), new Function() {
+	public UnframedResults<Object> unframed(Class kind) {
+		return new UnframedResults<Object>(graph(), pipeline(), kind);
+	}
 
-			public Object apply(Object e) {
-				return graph().frameElement((Element) e, kind);
-			}
-		});
+	@Override
+	public List toList(Class kind) {
+		return graph().frameList(pipeline(), kind);
 	}
 
 	@Override
-	public Set toSet(final Class kind) {
-		return Sets.newHashSet(toList(kind));
+	public List toList(Class kind, int expectedSize) {
+		return graph().frameList(pipeline(), kind, expectedSize);
+	}
+
+	@Override
+	public Set toSet(Class kind) {
+		return graph().frameSet(pipeline(), kind);
 	}
 	
 	@Override
@@ -624,7 +636,7 @@ abstract class VertexTraversalImpl extends TraversalBase implements VertexTraver
 
 					@Override
 					public Pipe apply(TraversalFunction input) {
-						return ((TraversalBase) input.compute(new TVertex())).pipeline();
+						return TraversalBase.pipelineOf(input.compute(new TVertex()));
 					}
 				});
 		pipeline().copySplit(extractedPipes.toArray(new Pipe[extractedPipes.size()]));
@@ -648,6 +660,32 @@ abstract class VertexTraversalImpl extends TraversalBase implements VertexTraver
 
 	}
 
+	@Override
+	public Traversal shortestPath(FramedVertex target, Direction direction, int maxDepth, String... labels) {
+		return super.shortestPath(target, direction, maxDepth, labels);
+	}
+
+	@Override
+	public Traversal shortestPath(FramedVertex target, Direction direction, TraversalFunction edgeWeight,
+			String... labels) {
+		return super.shortestPath(target, direction, edgeWeight, labels);
+	}
+
+	@Override
+	public VertexTraversal breadthFirst(TraversalFunction input, int depth) {
+		return (VertexTraversal) super.breadthFirst(input, depth);
+	}
+
+	@Override
+	public VertexTraversal breadthFirst(TraversalFunction input, int depth, boolean emitAll) {
+		return (VertexTraversal) super.breadthFirst(input, depth, emitAll);
+	}
+
+	@Override
+	public VertexTraversal breadthFirst(TraversalFunction input, int depth, boolean emitAll, int partitions) {
+		return (VertexTraversal) super.breadthFirst(input, depth, emitAll, partitions);
+	}
+
 	@Override
 	public VertexTraversal limit(int limit) {
 		return (VertexTraversal) super.limit(limit);
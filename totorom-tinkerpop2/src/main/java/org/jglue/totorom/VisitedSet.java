@@ -0,0 +1,135 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A set of element ids. Integral ids are stored in an open addressing table
+ * of primitive longs so that large traversals do not box every id. Other ids
+ * are kept in a regular hash set. Ids of different integral types with the
+ * same value are treated as equal, which is fine for graphs that use a single
+ * id type.
+ * 
+ * @author Bryn Cooke (http://jglue.org)
+ */
+class VisitedSet {
+
+	private long[] table = new long[16];
+	private int longs;
+	private boolean containsZero;
+	private Set<Object> others;
+
+	/**
+	 * @return <code>true</code> if the id was not already in the set.
+	 */
+	boolean add(Object id) {
+		if (!isIntegral(id)) {
+			if (others == null) {
+				others = new HashSet<>();
+			}
+			return others.add(id);
+		}
+		long value = ((Number) id).longValue();
+		if (value == 0) {
+			boolean added = !containsZero;
+			containsZero = true;
+			return added;
+		}
+		int slot = slot(table, value);
+		if (table[slot] == value) {
+			return false;
+		}
+		table[slot] = value;
+		if (++longs * 2 > table.length) {
+			grow();
+		}
+		return true;
+	}
+
+	boolean contains(Object id) {
+		if (!isIntegral(id)) {
+			return others != null && others.contains(id);
+		}
+		long value = ((Number) id).longValue();
+		if (value == 0) {
+			return containsZero;
+		}
+		return table[slot(table, value)] == value;
+	}
+
+	int size() {
+		return longs + (containsZero ? 1 : 0) + (others == null ? 0 : others.size());
+	}
+
+	private static boolean isIntegral(Object id) {
+		return id instanceof Long || id instanceof Integer || id instanceof Short || id instanceof Byte;
+	}
+
+	/**
+	 * @return The slot holding the value, or the empty slot where it belongs.
+	 */
+	private static int slot(long[] table, long value) {
+		int mask = table.length - 1;
+		int slot = (int) ((value * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+		while (table[slot] != 0 && table[slot] != value) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void grow() {
+		long[] grown = new long[table.length * 2];
+		for (long value : table) {
+			if (value != 0) {
+				grown[slot(grown, value)] = value;
+			}
+		}
+		table = grown;
+	}
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.tinkerpop.blueprints.Element;
+
+/**
+ * Collects property writes made through frames so that they can be applied
+ * to the graph in one go. Repeated writes to the same property of an element
+ * are coalesced so that only the last one reaches the graph.
+ * 
+ * @see Transaction#enableWriteBehind()
+ * @author Bryn Cooke (http://jglue.org)
+ */
+class WriteBuffer {
+
+	/**
+	 * Returned by {@link #get(Element, String)} when there is no pending write.
+	 */
+	static final Object NOT_PENDING = new Object();
+
+	/**
+	 * Marks a pending property removal.
+	 */
+	private static final Object REMOVED = new Object();
+
+	private final Map<Element, Map<String, Object>> writes = new LinkedHashMap<>();
+
+	/**
+	 * Buffer a property write.
+	 * 
+	 * @param element
+	 *            The element to write to.
+	 * @param key
+	 *            The property key.
+	 * @param value
+	 *            The value to set, or <code>null</code> to remove the property.
+	 */
+	void set(Element element, String key, Object value) {
+		Map<String, Object> properties = writes.get(element);
+		if (properties == null) {
+			properties = new LinkedHashMap<>();
+			writes.put(element, properties);
+		}
+		properties.put(key, value == null ? REMOVED : value);
+	}
+
+	/**
+	 * @return The pending value for a property, <code>null</code> if the
+	 *         property is pending removal or {@link #NOT_PENDING} if there is
+	 *         no pending write.
+	 */
+	Object get(Element element, String key) {
+		Map<String, Object> properties = writes.get(element);
+		if (properties == null || !properties.containsKey(key)) {
+			return NOT_PENDING;
+		}
+		Object value = properties.get(key);
+		return value == REMOVED ? null : value;
+	}
+
+	/**
+	 * @return The property keys of the element as they will be once the
+	 *         pending writes are applied.
+	 */
+	Set<String> getPropertyKeys(Element element) {
+		Map<String, Object> properties = writes.get(element);
+		if (properties == null) {
+			return element.getPropertyKeys();
+		}
+		Set<String> keys = new HashSet<>(element.getPropertyKeys());
+		for (Map.Entry<String, Object> property : properties.entrySet()) {
+			if (property.getValue() == REMOVED) {
+				keys.remove(property.getKey());
+			} else {
+				keys.add(property.getKey());
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * Drop the pending writes for an element, for instance because it has
+	 * been removed.
+	 */
+	void discard(Element element) {
+		writes.remove(element);
+	}
+
+	/**
+	 * Apply the pending writes to the graph in the order the elements were
+	 * first written.
+	 */
+	void flush() {
+		for (Map.Entry<Element, Map<String, Object>> element : writes.entrySet()) {
+			for (Map.Entry<String, Object> property : element.getValue().entrySet()) {
+				if (property.getValue() == REMOVED) {
+					element.getKey().removeProperty(property.getKey());
+				} else {
+					element.getKey().setProperty(property.getKey(), property.getValue());
+				}
+			}
+		}
+		writes.clear();
+	}
+
+	void clear() {
+		writes.clear();
+	}
+
+	/**
+	 * @return The number of elements with pending writes.
+	 */
+	int size() {
+		return writes.size();
+	}
+}
@@ -0,0 +1,232 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom.algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jglue.totorom.FramedGraph;
+import org.jglue.totorom.FramedVertex;
+import org.jglue.totorom.TVertex;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * An immutable copy of the adjacency of a graph in compressed sparse row
+ * form. Vertices are numbered from 0 and the out and in neighbours of each
+ * vertex are held in primitive int arrays, so algorithms can run over the
+ * snapshot without touching the graph or boxing.
+ * <p>
+ * Parallel edges are kept, so a vertex may appear more than once in the
+ * neighbours of another.
+ * 
+ * @see GraphAlgorithms
+ * @author Bryn Cooke (http://jglue.org)
+ */
+public final class AdjacencySnapshot {
+
+	private final Object[] ids;
+	private final Map<Object, Integer> indexes;
+	final int[] outOffsets;
+	final int[] outTargets;
+	final int[] inOffsets;
+	final int[] inSources;
+
+	private AdjacencySnapshot(Object[] ids, Map<Object, Integer> indexes, int[] sources, int[] targets, int edges) {
+		this.ids = ids;
+		this.indexes = indexes;
+		outOffsets = new int[ids.length + 1];
+		outTargets = new int[edges];
+		inOffsets = new int[ids.length + 1];
+		inSources = new int[edges];
+		group(sources, targets, edges, outOffsets, outTargets);
+		group(targets, sources, edges, inOffsets, inSources);
+	}
+
+	/**
+	 * Snapshot all the vertices of a graph.
+	 * 
+	 * @param graph
+	 *            The graph to snapshot.
+	 * @param labels
+	 *            The labels of the edges to include, or none for all edges.
+	 * @return The snapshot.
+	 */
+	public static AdjacencySnapshot of(FramedGraph graph, String... labels) {
+		return of(graph, null, labels);
+	}
+
+	/**
+	 * Snapshot the vertices of a graph that frame as a given type. Edges to or
+	 * from other vertices are left out.
+	 * 
+	 * @param graph
+	 *            The graph to snapshot.
+	 * @param kind
+	 *            The frame type of the vertices to include, or
+	 *            <code>null</code> for all vertices.
+	 * @param labels
+	 *            The labels of the edges to include, or none for all edges.
+	 * @return The snapshot.
+	 */
+	public static AdjacencySnapshot of(FramedGraph graph, Class<? extends FramedVertex> kind, String... labels) {
+		Graph base = graph.getBaseGraph();
+		List<Vertex> vertices = new ArrayList<>();
+		if (kind == null) {
+			for (Vertex vertex : base.getVertices()) {
+				vertices.add(vertex);
+			}
+		} else {
+			// Type resolution is only available through frames.
+			for (TVertex vertex : graph.V()) {
+				if (kind.isInstance(vertex.reframe(kind))) {
+					vertices.add(base.getVertex(vertex.getId()));
+				}
+			}
+		}
+
+		Object[] ids = new Object[vertices.size()];
+		Map<Object, Integer> indexes = new HashMap<>(vertices.size() * 2);
+		for (int index = 0; index < ids.length; index++) {
+			ids[index] = vertices.get(index).getId();
+			indexes.put(ids[index], index);
+		}
+
+		int[] sources = new int[Math.max(16, ids.length)];
+		int[] targets = new int[sources.length];
+		int edges = 0;
+		for (int index = 0; index < ids.length; index++) {
+			for (Edge edge : vertices.get(index).getEdges(Direction.OUT, labels)) {
+				Integer target = indexes.get(edge.getVertex(Direction.IN).getId());
+				if (target != null) {
+					if (edges == sources.length) {
+						sources = Arrays.copyOf(sources, edges * 2);
+						targets = Arrays.copyOf(targets, edges * 2);
+					}
+					sources[edges] = index;
+					targets[edges] = target;
+					edges++;
+				}
+			}
+		}
+		return new AdjacencySnapshot(ids, indexes, sources, targets, edges);
+	}
+
+	/**
+	 * Counting sort the edges by their first vertex.
+	 */
+	private static void group(int[] from, int[] to, int edges, int[] offsets, int[] grouped) {
+		for (int edge = 0; edge < edges; edge++) {
+			offsets[from[edge] + 1]++;
+		}
+		for (int vertex = 0; vertex < offsets.length - 1; vertex++) {
+			offsets[vertex + 1] += offsets[vertex];
+		}
+		int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+		for (int edge = 0; edge < edges; edge++) {
+			grouped[next[from[edge]]++] = to[edge];
+		}
+	}
+
+	/**
+	 * @return The number of vertices in the snapshot.
+	 */
+	public int vertexCount() {
+		return ids.length;
+	}
+
+	/**
+	 * @return The number of edges in the snapshot.
+	 */
+	public int edgeCount() {
+		return outTargets.length;
+	}
+
+	/**
+	 * @return The id of the vertex with the index.
+	 */
+	public Object id(int vertex) {
+		return ids[vertex];
+	}
+
+	/**
+	 * @return The index of the vertex with the id, or -1 if it is not in the
+	 *         snapshot.
+	 */
+	public int index(Object id) {
+		Integer index = indexes.get(id);
+		return index == null ? -1 : index;
+	}
+
+	public int outDegree(int vertex) {
+		return outOffsets[vertex + 1] - outOffsets[vertex];
+	}
+
+	public int inDegree(int vertex) {
+		return inOffsets[vertex + 1] - inOffsets[vertex];
+	}
+
+	/**
+	 * @return A copy of the indexes of the out neighbours of the vertex.
+	 */
+	public int[] out(int vertex) {
+		return Arrays.copyOfRange(outTargets, outOffsets[vertex], outOffsets[vertex + 1]);
+	}
+
+	/**
+	 * @return A copy of the indexes of the in neighbours of the vertex.
+	 */
+	public int[] in(int vertex) {
+		return Arrays.copyOfRange(inSources, inOffsets[vertex], inOffsets[vertex + 1]);
+	}
+}
@@ -0,0 +1,414 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom.algorithms;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.jglue.totorom.FramedGraph;
+
+/**
+ * Whole graph algorithms that run in parallel over an
+ * {@link AdjacencySnapshot}. The vertices are split in to fixed ranges that
+ * are processed on a shared {@link ForkJoinPool}, with at most the requested
+ * number of partitions in flight. The ranges do not depend on the number of
+ * partitions, so results are the same however many threads are used.
+ * 
+ * <pre>
+ * AdjacencySnapshot snapshot = AdjacencySnapshot.of(fg, Person.class, &quot;knows&quot;);
+ * GraphAlgorithms algorithms = new GraphAlgorithms(fg, snapshot, 8);
+ * algorithms.pageRank().write(fg, &quot;rank&quot;);
+ * </pre>
+ * 
+ * @author Bryn Cooke (http://jglue.org)
+ */
+public class GraphAlgorithms {
+
+	/**
+	 * The number of vertices processed by each task.
+	 */
+	static final int CHUNK_SIZE = 1024;
+
+	private interface RangeFunction {
+		/**
+		 * Process the vertices in the range.
+		 * 
+		 * @return A partial result that is summed over all ranges.
+		 */
+		double apply(int from, int to);
+	}
+
+	private final AdjacencySnapshot snapshot;
+	private final ForkJoinPool pool;
+	private final int partitions;
+
+	/**
+	 * Run algorithms on the parallel pool of a graph.
+	 * 
+	 * @param graph
+	 *            The graph whose pool the algorithms run on.
+	 * @param snapshot
+	 *            The graph to run algorithms over.
+	 * @param partitions
+	 *            The maximum number of ranges to process at once.
+	 * @see FramedGraph#setParallelPool(ForkJoinPool)
+	 */
+	public GraphAlgorithms(FramedGraph graph, AdjacencySnapshot snapshot, int partitions) {
+		this(snapshot, graph.getParallelPool(), partitions);
+	}
+
+	/**
+	 * @param snapshot
+	 *            The graph to run algorithms over.
+	 * @param pool
+	 *            The pool to run the algorithms on. It is not shut down.
+	 * @param partitions
+	 *            The maximum number of ranges to process at once.
+	 */
+	public GraphAlgorithms(AdjacencySnapshot snapshot, ForkJoinPool pool, int partitions) {
+		if (partitions < 1) {
+			throw new IllegalArgumentException("Partitions must be at least 1");
+		}
+		if (pool == null) {
+			throw new IllegalArgumentException("Pool must not be null");
+		}
+		this.snapshot = snapshot;
+		this.pool = pool;
+		this.partitions = partitions;
+	}
+
+	private double run(final RangeFunction function) {
+		// Bound the number of ranges in flight so that no more than the
+		// requested partitions run at once, and sum the partial results in
+		// range order so that they do not depend on scheduling.
+		int count = snapshot.vertexCount();
+		double total = 0;
+		Deque<ForkJoinTask<Double>> running = new ArrayDeque<>();
+		try {
+			for (int from = 0; from < count; from += CHUNK_SIZE) {
+				final int start = from;
+				final int end = Math.min(from + CHUNK_SIZE, count);
+				running.add(pool.submit(new Callable<Double>() {
+
+					@Override
+					public Double call() {
+						return function.apply(start, end);
+					}
+				}));
+				if (running.size() >= partitions) {
+					total += running.poll().join();
+				}
+			}
+			while (!running.isEmpty()) {
+				total += running.poll().join();
+			}
+		} finally {
+			// The pool is shared, so only abandon this run's ranges.
+			for (ForkJoinTask<Double> task : running) {
+				task.cancel(true);
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Compute PageRank with a damping factor of 0.85 for at most 20
+	 * iterations.
+	 * 
+	 * @return The rank of each vertex.
+	 */
+	public DoubleVertexValues pageRank() {
+		return pageRank(0.85, 20, 1e-6);
+	}
+
+	/**
+	 * Compute PageRank by power iteration. The rank of vertices without out
+	 * edges is spread evenly over all vertices, so the ranks always sum to 1.
+	 * 
+	 * @param damping
+	 *            The probability of following an edge rather than jumping to
+	 *            a random vertex.
+	 * @param maxIterations
+	 *            The maximum number of iterations.
+	 * @param tolerance
+	 *            Stop once the total change in rank over an iteration is
+	 *            less than this.
+	 * @return The rank of each vertex.
+	 */
+	public DoubleVertexValues pageRank(final double damping, int maxIterations, double tolerance) {
+		final int count = snapshot.vertexCount();
+		final double[] ranks = new double[count];
+		final double[] next = new double[count];
+		final double[] contributions = new double[count];
+		Arrays.fill(ranks, 1.0 / count);
+		final int[] outOffsets = snapshot.outOffsets;
+		final int[] inOffsets = snapshot.inOffsets;
+		final int[] inSources = snapshot.inSources;
+
+		for (int iteration = 0; iteration < maxIterations && count > 0; iteration++) {
+			double dangling = run(new RangeFunction() {
+
+				@Override
+				public double apply(int from, int to) {
+					double dangling = 0;
+					for (int vertex = from; vertex < to; vertex++) {
+						int degree = outOffsets[vertex + 1] - outOffsets[vertex];
+						if (degree == 0) {
+							dangling += ranks[vertex];
+							contributions[vertex] = 0;
+						} else {
+							contributions[vertex] = ranks[vertex] / degree;
+						}
+					}
+					return dangling;
+				}
+			});
+			final double base = (1 - damping) / count + damping * dangling / count;
+			double delta = run(new RangeFunction() {
+
+				@Override
+				public double apply(int from, int to) {
+					double delta = 0;
+					for (int vertex = from; vertex < to; vertex++) {
+						double sum = 0;
+						for (int edge = inOffsets[vertex]; edge < inOffsets[vertex + 1]; edge++) {
+							sum += contributions[inSources[edge]];
+						}
+						next[vertex] = base + damping * sum;
+						delta += Math.abs(next[vertex] - ranks[vertex]);
+					}
+					return delta;
+				}
+			});
+			System.arraycopy(next, 0, ranks, 0, count);
+			if (delta < tolerance) {
+				break;
+			}
+		}
+		return new DoubleVertexValues(snapshot, ranks);
+	}
+
+	/**
+	 * Find the weakly connected components by label propagation with pointer
+	 * jumping. Each component is identified by the lowest index of the
+	 * vertices in it, which can be turned in to the id of a representative
+	 * vertex with {@link AdjacencySnapshot#id(int)}.
+	 * 
+	 * @return The component of each vertex.
+	 */
+	public LongVertexValues weaklyConnectedComponents() {
+		final int count = snapshot.vertexCount();
+		final int[] labels = new int[count];
+		for (int vertex = 0; vertex < count; vertex++) {
+			labels[vertex] = vertex;
+		}
+		final int[] outOffsets = snapshot.outOffsets;
+		final int[] outTargets = snapshot.outTargets;
+		final int[] inOffsets = snapshot.inOffsets;
+		final int[] inSources = snapshot.inSources;
+
+		// Labels only ever decrease to the index of another vertex in the
+		// same component, so reading labels that other tasks are updating
+		// is safe. A pass without changes has read a consistent state.
+		double changes;
+		do {
+			changes = run(new RangeFunction() {
+
+				@Override
+				public double apply(int from, int to) {
+					int changes = 0;
+					for (int vertex = from; vertex < to; vertex++) {
+						int label = labels[vertex];
+						for (int edge = outOffsets[vertex]; edge < outOffsets[vertex + 1]; edge++) {
+							label = Math.min(label, labels[outTargets[edge]]);
+						}
+						for (int edge = inOffsets[vertex]; edge < inOffsets[vertex + 1]; edge++) {
+							label = Math.min(label, labels[inSources[edge]]);
+						}
+						if (label < labels[vertex]) {
+							labels[vertex] = label;
+							changes++;
+						}
+					}
+					return changes;
+				}
+			});
+			run(new RangeFunction() {
+
+				@Override
+				public double apply(int from, int to) {
+					for (int vertex = from; vertex < to; vertex++) {
+						while (labels[labels[vertex]] < labels[vertex]) {
+							labels[vertex] = labels[labels[vertex]];
+						}
+					}
+					return 0;
+				}
+			});
+		} while (changes > 0);
+
+		long[] components = new long[count];
+		for (int vertex = 0; vertex < count; vertex++) {
+			components[vertex] = labels[vertex];
+		}
+		return new LongVertexValues(snapshot, components);
+	}
+
+	/**
+	 * Count the triangles that each vertex is part of, ignoring edge
+	 * direction, self loops and parallel edges. The total number of
+	 * triangles in the graph is {@link LongVertexValues#sum()} divided by 3.
+	 * 
+	 * @return The number of triangles of each vertex.
+	 */
+	public LongVertexValues triangleCount() {
+		final int count = snapshot.vertexCount();
+		final int[][] neighbours = new int[count][];
+		final int[][] forward = new int[count][];
+		final AtomicLongArray triangles = new AtomicLongArray(count);
+
+		run(new RangeFunction() {
+
+			@Override
+			public double apply(int from, int to) {
+				for (int vertex = from; vertex < to; vertex++) {
+					neighbours[vertex] = undirected(vertex);
+				}
+				return 0;
+			}
+		});
+		// Orient each edge from the lower to the higher degree vertex so
+		// that every triangle is found exactly once and hubs are not
+		// intersected repeatedly.
+		run(new RangeFunction() {
+
+			@Override
+			public double apply(int from, int to) {
+				for (int vertex = from; vertex < to; vertex++) {
+					int[] higher = new int[neighbours[vertex].length];
+					int size = 0;
+					for (int neighbour : neighbours[vertex]) {
+						if (isHigher(neighbours, neighbour, vertex)) {
+							higher[size++] = neighbour;
+						}
+					}
+					forward[vertex] = Arrays.copyOf(higher, size);
+				}
+				return 0;
+			}
+		});
+		run(new RangeFunction() {
+
+			@Override
+			public double apply(int from, int to) {
+				for (int vertex = from; vertex < to; vertex++) {
+					for (int neighbour : forward[vertex]) {
+						int[] a = forward[vertex];
+						int[] b = forward[neighbour];
+						int i = 0;
+						int j = 0;
+						while (i < a.length && j < b.length) {
+							if (a[i] < b[j]) {
+								i++;
+							} else if (a[i] > b[j]) {
+								j++;
+							} else {
+								triangles.incrementAndGet(vertex);
+								triangles.incrementAndGet(neighbour);
+								triangles.incrementAndGet(a[i]);
+								i++;
+								j++;
+							}
+						}
+					}
+				}
+				return 0;
+			}
+		});
+
+		long[] counts = new long[count];
+		for (int vertex = 0; vertex < count; vertex++) {
+			counts[vertex] = triangles.get(vertex);
+		}
+		return new LongVertexValues(snapshot, counts);
+	}
+
+	/**
+	 * @return The sorted distinct neighbours of a vertex in either direction,
+	 *         excluding itself.
+	 */
+	private int[] undirected(int vertex) {
+		int[] out = snapshot.outTargets;
+		int[] in = snapshot.inSources;
+		int outFrom = snapshot.outOffsets[vertex];
+		int outTo = snapshot.outOffsets[vertex + 1];
+		int inFrom = snapshot.inOffsets[vertex];
+		int inTo = snapshot.inOffsets[vertex + 1];
+		int[] all = new int[outTo - outFrom + inTo - inFrom];
+		System.arraycopy(out, outFrom, all, 0, outTo - outFrom);
+		System.arraycopy(in, inFrom, all, outTo - outFrom, inTo - inFrom);
+		Arrays.sort(all);
+		int size = 0;
+		for (int index = 0; index < all.length; index++) {
+			if (all[index] != vertex && (size == 0 || all[size - 1] != all[index])) {
+				all[size++] = all[index];
+			}
+		}
+		return Arrays.copyOf(all, size);
+	}
+
+	private static boolean isHigher(int[][] neighbours, int a, int b) {
+		int degreeA = neighbours[a].length;
+		int degreeB = neighbours[b].length;
+		return degreeA > degreeB || (degreeA == degreeB && a > b);
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom.algorithms;
+
+import org.jglue.totorom.FramedGraph;
+import org.jglue.totorom.Transaction;
+
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * The result of an algorithm, holding one primitive value per vertex of an
+ * {@link AdjacencySnapshot}.
+ * 
+ * @author Bryn Cooke (http://jglue.org)
+ */
+public abstract class VertexValues {
+
+	/**
+	 * The number of vertices written per transaction when none is specified.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 10000;
+
+	protected final AdjacencySnapshot snapshot;
+
+	VertexValues(AdjacencySnapshot snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * @return The snapshot that the values were computed from.
+	 */
+	public AdjacencySnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * @return The number of values, which is the number of vertices in the
+	 *         snapshot.
+	 */
+	public int size() {
+		return snapshot.vertexCount();
+	}
+
+	/**
+	 * @return The value of the vertex with the index, boxed for storing as a
+	 *         property.
+	 */
+	protected abstract Object box(int vertex);
+
+	/**
+	 * Store the values as a property on the vertices, committing after every
+	 * {@link #DEFAULT_BATCH_SIZE} vertices.
+	 * 
+	 * @param graph
+	 *            The graph to write to.
+	 * @param key
+	 *            The property key.
+	 */
+	public void write(FramedGraph graph, String key) {
+		write(graph, key, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Store the values as a property on the vertices, committing after every
+	 * batch of vertices. Vertices that have been removed since the snapshot
+	 * was taken are skipped. The properties are written to the underlying
+	 * graph directly, so frames that cache properties will not see them.
+	 * 
+	 * @param graph
+	 *            The graph to write to.
+	 * @param key
+	 *            The property key.
+	 * @param batchSize
+	 *            The number of vertices to write per transaction.
+	 */
+	public void write(FramedGraph graph, String key, int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1");
+		}
+		Graph base = graph.getBaseGraph();
+		for (int from = 0; from < size(); from += batchSize) {
+			try (Transaction tx = graph.tx()) {
+				for (int vertex = from; vertex < Math.min(from + batchSize, size()); vertex++) {
+					Vertex element = base.getVertex(snapshot.id(vertex));
+					if (element != null) {
+						element.setProperty(key, box(vertex));
+					}
+				}
+				tx.commit();
+			}
+		}
+	}
+}
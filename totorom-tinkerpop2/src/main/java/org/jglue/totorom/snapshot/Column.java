@@ -0,0 +1,117 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom.snapshot;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * One encoded value per vertex or edge, held in mapped memory. The value of
+ * slot <code>i</code> is stored between <code>offsets[i]</code> and
+ * <code>offsets[i + 1]</code> in the data, an empty range means that the
+ * element has no value.
+ * <p>
+ * Only absolute reads are used so a column may be read from many threads.
+ *
+ * @author Bryn Cooke (http://jglue.org)
+ */
+final class Column {
+
+	private final IntBuffer offsets;
+	private final ByteBuffer data;
+
+	Column(IntBuffer offsets, ByteBuffer data) {
+		this.offsets = offsets;
+		this.data = data;
+	}
+
+	int size() {
+		return offsets.limit() - 1;
+	}
+
+	boolean has(int slot) {
+		return offsets.get(slot + 1) != offsets.get(slot);
+	}
+
+	Object get(int slot) {
+		int start = offsets.get(slot);
+		int end = offsets.get(slot + 1);
+		return start == end ? null : Values.decode(data, start, end);
+	}
+
+	boolean matches(int slot, byte[] encoded) {
+		int start = offsets.get(slot);
+		if (offsets.get(slot + 1) - start != encoded.length) {
+			return false;
+		}
+		for (int index = 0; index < encoded.length; index++) {
+			if (data.get(start + index) != encoded[index]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Find a value using an open addressing hash table of the slots, as
+	 * written by {@link SnapshotExporter}.
+	 *
+	 * @return The slot holding the value, or -1 if there is none.
+	 */
+	int find(IntBuffer table, byte[] encoded) {
+		int mask = table.limit() - 1;
+		for (int bucket = Values.hash(encoded) & mask;; bucket = (bucket + 1) & mask) {
+			int entry = table.get(bucket);
+			if (entry == 0) {
+				return -1;
+			}
+			if (matches(entry - 1, encoded)) {
+				return entry - 1;
+			}
+		}
+	}
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom.snapshot;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.tinkerpop.blueprints.Element;
+
+/**
+ * A view of the vertex or edge at a position in a {@link SnapshotGraph}.
+ * Views of the same position are equal.
+ *
+ * @author Bryn Cooke (http://jglue.org)
+ */
+abstract class SnapshotElement implements Element {
+
+	protected final SnapshotGraph graph;
+	protected final int index;
+	private Object id;
+
+	SnapshotElement(SnapshotGraph graph, int index) {
+		this.graph = graph;
+		this.index = index;
+	}
+
+	/**
+	 * @return The property columns for this kind of element.
+	 */
+	abstract Map<String, Column> columns();
+
+	abstract Object readId();
+
+	@Override
+	public Object getId() {
+		// Racing threads decode the same value, so there is no need to lock.
+		if (id == null) {
+			id = readId();
+		}
+		return id;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T getProperty(String key) {
+		Column column = columns().get(key);
+		return column == null ? null : (T) column.get(index);
+	}
+
+	@Override
+	public Set<String> getPropertyKeys() {
+		Set<String> keys = new HashSet<>();
+		for (Map.Entry<String, Column> column : columns().entrySet()) {
+			if (column.getValue().has(index)) {
+				keys.add(column.getKey());
+			}
+		}
+		return keys;
+	}
+
+	@Override
+	public void setProperty(String key, Object value) {
+		throw SnapshotGraph.readOnly();
+	}
+
+	@Override
+	public <T> T removeProperty(String key) {
+		throw SnapshotGraph.readOnly();
+	}
+
+	@Override
+	public void remove() {
+		throw SnapshotGraph.readOnly();
+	}
+
+	@Override
+	public int hashCode() {
+		return index;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		SnapshotElement other = (SnapshotElement) obj;
+		return index == other.index && graph == other.graph;
+	}
+}
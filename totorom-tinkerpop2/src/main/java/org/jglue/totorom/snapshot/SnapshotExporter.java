@@ -0,0 +1,313 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * Writes a graph to a file that can be opened as a {@link SnapshotGraph}.
+ * The vertices and the edges of the source graph are each iterated once.
+ * <p>
+ * The file holds, in order:
+ * <ul>
+ * <li>A header with the vertex and edge counts.</li>
+ * <li>The vertex ids and a hash table from id to vertex.</li>
+ * <li>The out and in edges of each vertex in compressed sparse row form.</li>
+ * <li>The out vertex, in vertex and label of each edge.</li>
+ * <li>The edge ids and a hash table from id to edge.</li>
+ * <li>The edge labels.</li>
+ * <li>A column per vertex property key and a column per edge property key.</li>
+ * </ul>
+ * Vertices and edges are referred to by their position, so all of this is
+ * int arrays and encoded values. Files are limited to 2GB.
+ *
+ * @author Bryn Cooke (http://jglue.org)
+ */
+public final class SnapshotExporter {
+
+	static final int MAGIC = 0x546f5447;
+	static final int VERSION = 1;
+
+	private SnapshotExporter() {
+	}
+
+	/**
+	 * Write a snapshot of a graph. The export needs heap in proportion to the
+	 * size of the graph, opening the result does not.
+	 *
+	 * @param source
+	 *            The graph to export.
+	 * @param file
+	 *            The file to write, it is replaced if it exists.
+	 */
+	public static void export(Graph source, File file) {
+		Map<Object, Integer> vertexIndexes = new HashMap<>();
+		ColumnWriter vertexIds = new ColumnWriter();
+		IntList vertexHashes = new IntList();
+		Map<String, ColumnWriter> vertexColumns = new LinkedHashMap<>();
+		for (Vertex vertex : source.getVertices()) {
+			int index = vertexIndexes.size();
+			byte[] id = Values.encode(vertex.getId());
+			vertexIndexes.put(vertex.getId(), index);
+			vertexIds.set(index, id);
+			vertexHashes.add(Values.hash(id));
+			properties(vertex, index, vertexColumns);
+		}
+
+		IntList edgeOut = new IntList();
+		IntList edgeIn = new IntList();
+		IntList edgeLabels = new IntList();
+		Map<String, Integer> labels = new LinkedHashMap<>();
+		ColumnWriter edgeIds = new ColumnWriter();
+		IntList edgeHashes = new IntList();
+		Map<String, ColumnWriter> edgeColumns = new LinkedHashMap<>();
+		for (Edge edge : source.getEdges()) {
+			int index = edgeOut.size;
+			edgeOut.add(index(vertexIndexes, edge.getVertex(Direction.OUT)));
+			edgeIn.add(index(vertexIndexes, edge.getVertex(Direction.IN)));
+			Integer label = labels.get(edge.getLabel());
+			if (label == null) {
+				label = labels.size();
+				labels.put(edge.getLabel(), label);
+			}
+			edgeLabels.add(label);
+			byte[] id = Values.encode(edge.getId());
+			edgeIds.set(index, id);
+			edgeHashes.add(Values.hash(id));
+			properties(edge, index, edgeColumns);
+		}
+
+		int vertices = vertexIndexes.size();
+		int edges = edgeOut.size;
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(vertices);
+			out.writeInt(edges);
+			vertexIds.writeTo(out, vertices);
+			writeInts(out, hashTable(vertexHashes));
+			int[] grouped = new int[edges];
+			writeInts(out, group(edgeOut, vertices, grouped));
+			writeInts(out, grouped);
+			writeInts(out, group(edgeIn, vertices, grouped));
+			writeInts(out, grouped);
+			writeInts(out, Arrays.copyOf(edgeOut.values, edges));
+			writeInts(out, Arrays.copyOf(edgeIn.values, edges));
+			writeInts(out, Arrays.copyOf(edgeLabels.values, edges));
+			edgeIds.writeTo(out, edges);
+			writeInts(out, hashTable(edgeHashes));
+			out.writeInt(labels.size());
+			for (String label : labels.keySet()) {
+				writeBytes(out, label.getBytes(Values.UTF8));
+			}
+			writeColumns(out, vertexColumns, vertices);
+			writeColumns(out, edgeColumns, edges);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		if (file.length() > Integer.MAX_VALUE) {
+			file.delete();
+			throw new IllegalArgumentException("Graph is too large for a snapshot, files are limited to 2GB");
+		}
+	}
+
+	private static int index(Map<Object, Integer> vertexIndexes, Vertex vertex) {
+		Integer index = vertexIndexes.get(vertex.getId());
+		if (index == null) {
+			throw new IllegalStateException("Edge refers to vertex " + vertex.getId() + " that was not exported");
+		}
+		return index;
+	}
+
+	private static void properties(Element element, int slot, Map<String, ColumnWriter> columns) {
+		for (String key : element.getPropertyKeys()) {
+			Object value = element.getProperty(key);
+			if (value != null) {
+				ColumnWriter column = columns.get(key);
+				if (column == null) {
+					column = new ColumnWriter();
+					columns.put(key, column);
+				}
+				column.set(slot, Values.encode(value));
+			}
+		}
+	}
+
+	/**
+	 * Counting sort the edges by one of their vertices.
+	 *
+	 * @return The offsets of the edges of each vertex in the grouped edges.
+	 */
+	private static int[] group(IntList vertexOfEdge, int vertices, int[] grouped) {
+		int[] offsets = new int[vertices + 1];
+		for (int edge = 0; edge < vertexOfEdge.size; edge++) {
+			offsets[vertexOfEdge.values[edge] + 1]++;
+		}
+		for (int vertex = 0; vertex < vertices; vertex++) {
+			offsets[vertex + 1] += offsets[vertex];
+		}
+		int[] next = Arrays.copyOf(offsets, vertices);
+		for (int edge = 0; edge < vertexOfEdge.size; edge++) {
+			grouped[next[vertexOfEdge.values[edge]]++] = edge;
+		}
+		return offsets;
+	}
+
+	/**
+	 * Build an open addressing table that holds slot + 1 in the bucket of
+	 * each hash, zero marks an empty bucket.
+	 */
+	private static int[] hashTable(IntList hashes) {
+		int size = 2;
+		while (size < hashes.size * 2) {
+			size <<= 1;
+		}
+		int[] table = new int[size];
+		int mask = size - 1;
+		for (int slot = 0; slot < hashes.size; slot++) {
+			int bucket = hashes.values[slot] & mask;
+			while (table[bucket] != 0) {
+				bucket = (bucket + 1) & mask;
+			}
+			table[bucket] = slot + 1;
+		}
+		return table;
+	}
+
+	private static void writeColumns(DataOutputStream out, Map<String, ColumnWriter> columns, int slots)
+			throws IOException {
+		out.writeInt(columns.size());
+		for (Map.Entry<String, ColumnWriter> column : columns.entrySet()) {
+			writeBytes(out, column.getKey().getBytes(Values.UTF8));
+			column.getValue().writeTo(out, slots);
+		}
+	}
+
+	private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+		out.writeInt(values.length);
+		for (int value : values) {
+			out.writeInt(value);
+		}
+	}
+
+	/**
+	 * Write a length and bytes, padded so that the next int is aligned.
+	 */
+	private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+		out.writeInt(bytes.length);
+		out.write(bytes);
+		for (int pad = bytes.length; pad % 4 != 0; pad++) {
+			out.write(0);
+		}
+	}
+
+	static int padded(int length) {
+		return (length + 3) & ~3;
+	}
+
+	private static class IntList {
+		private int[] values = new int[16];
+		private int size;
+
+		void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+	}
+
+	/**
+	 * Accumulates a column in slot order, slots that are skipped have no
+	 * value.
+	 */
+	private static class ColumnWriter {
+		private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+		private int[] offsets = new int[16];
+		private int slots;
+
+		void set(int slot, byte[] encoded) {
+			fill(slot);
+			data.write(encoded, 0, encoded.length);
+			next();
+		}
+
+		private void fill(int slot) {
+			while (slots < slot) {
+				next();
+			}
+		}
+
+		private void next() {
+			if (slots + 1 == offsets.length) {
+				offsets = Arrays.copyOf(offsets, offsets.length * 2);
+			}
+			offsets[++slots] = data.size();
+		}
+
+		void writeTo(DataOutputStream out, int slots) throws IOException {
+			fill(slots);
+			writeInts(out, Arrays.copyOf(offsets, slots + 1));
+			writeBytes(out, data.toByteArray());
+		}
+	}
+}
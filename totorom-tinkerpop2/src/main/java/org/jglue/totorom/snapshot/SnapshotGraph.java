@@ -0,0 +1,487 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom.snapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Iterables;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Features;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.GraphQuery;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.DefaultGraphQuery;
+import com.tinkerpop.blueprints.util.StringFactory;
+
+/**
+ * A read only graph that is memory mapped from a file written by
+ * {@link SnapshotExporter}. Adjacency is held in compressed sparse row
+ * arrays and properties in one column per key, all outside of the heap, so
+ * opening a snapshot is immediate and the graph costs nothing to collect.
+ * Vertices and edges are lightweight views that are created as they are
+ * visited.
+ * <p>
+ * The graph may be read from many threads and can be wrapped in a
+ * {@link org.jglue.totorom.FramedGraph} like any other graph. Anything that
+ * modifies it throws {@link UnsupportedOperationException}.
+ *
+ * <pre>
+ * SnapshotExporter.export(graph, file);
+ * FramedGraph fg = new FramedGraph(SnapshotGraph.open(file));
+ * </pre>
+ *
+ * @author Bryn Cooke (http://jglue.org)
+ */
+public final class SnapshotGraph implements Graph {
+
+	private static final Features FEATURES = new Features();
+
+	static {
+		FEATURES.supportsDuplicateEdges = true;
+		FEATURES.supportsSelfLoops = true;
+		FEATURES.supportsSerializableObjectProperty = true;
+		FEATURES.supportsBooleanProperty = true;
+		FEATURES.supportsDoubleProperty = true;
+		FEATURES.supportsFloatProperty = true;
+		FEATURES.supportsIntegerProperty = true;
+		FEATURES.supportsPrimitiveArrayProperty = true;
+		FEATURES.supportsUniformListProperty = true;
+		FEATURES.supportsMixedListProperty = true;
+		FEATURES.supportsLongProperty = true;
+		FEATURES.supportsMapProperty = true;
+		FEATURES.supportsStringProperty = true;
+		FEATURES.hasImplicitElements = false;
+		FEATURES.ignoresSuppliedIds = false;
+		FEATURES.isPersistent = true;
+		FEATURES.isWrapper = false;
+		FEATURES.supportsIndices = false;
+		FEATURES.supportsVertexIndex = false;
+		FEATURES.supportsEdgeIndex = false;
+		FEATURES.supportsKeyIndices = false;
+		FEATURES.supportsVertexKeyIndex = false;
+		FEATURES.supportsEdgeKeyIndex = false;
+		FEATURES.supportsEdgeIteration = true;
+		FEATURES.supportsVertexIteration = true;
+		FEATURES.supportsEdgeRetrieval = true;
+		FEATURES.supportsVertexProperties = true;
+		FEATURES.supportsEdgeProperties = true;
+		FEATURES.supportsTransactions = false;
+		FEATURES.supportsThreadedTransactions = false;
+		FEATURES.supportsThreadIsolatedTransactions = false;
+	}
+
+	private final int vertexCount;
+	private final int edgeCount;
+	private final Column vertexIds;
+	private final IntBuffer vertexIdTable;
+	final IntBuffer outOffsets;
+	final IntBuffer outEdges;
+	final IntBuffer inOffsets;
+	final IntBuffer inEdges;
+	final IntBuffer edgeOut;
+	final IntBuffer edgeIn;
+	final IntBuffer edgeLabels;
+	private final Column edgeIds;
+	private final IntBuffer edgeIdTable;
+	final String[] labels;
+	private final Map<String, Integer> labelIndexes;
+	final Map<String, Column> vertexColumns;
+	final Map<String, Column> edgeColumns;
+
+	private SnapshotGraph(ByteBuffer buffer) {
+		if (buffer.getInt() != SnapshotExporter.MAGIC) {
+			throw new IllegalArgumentException("Not a graph snapshot");
+		}
+		int version = buffer.getInt();
+		if (version != SnapshotExporter.VERSION) {
+			throw new IllegalArgumentException("Unsupported snapshot version " + version);
+		}
+		vertexCount = buffer.getInt();
+		edgeCount = buffer.getInt();
+		vertexIds = readColumn(buffer);
+		vertexIdTable = readInts(buffer);
+		outOffsets = readInts(buffer);
+		outEdges = readInts(buffer);
+		inOffsets = readInts(buffer);
+		inEdges = readInts(buffer);
+		edgeOut = readInts(buffer);
+		edgeIn = readInts(buffer);
+		edgeLabels = readInts(buffer);
+		edgeIds = readColumn(buffer);
+		edgeIdTable = readInts(buffer);
+		labels = new String[buffer.getInt()];
+		labelIndexes = new HashMap<>(labels.length * 2);
+		for (int label = 0; label < labels.length; label++) {
+			labels[label] = readString(buffer);
+			labelIndexes.put(labels[label], label);
+		}
+		vertexColumns = readColumns(buffer);
+		edgeColumns = readColumns(buffer);
+	}
+
+	/**
+	 * Map a snapshot file. Only the labels and property keys are read in to
+	 * the heap.
+	 *
+	 * @param file
+	 *            A file written by {@link SnapshotExporter}.
+	 * @return The graph.
+	 */
+	public static SnapshotGraph open(File file) {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			// The mapping stays valid after the channel is closed.
+			return new SnapshotGraph(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static IntBuffer readInts(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		return slice(buffer, length * 4).asIntBuffer();
+	}
+
+	private static ByteBuffer readBytes(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		ByteBuffer bytes = slice(buffer, length);
+		buffer.position(buffer.position() + SnapshotExporter.padded(length) - length);
+		return bytes;
+	}
+
+	private static ByteBuffer slice(ByteBuffer buffer, int length) {
+		ByteBuffer slice = buffer.duplicate();
+		slice.limit(buffer.position() + length);
+		buffer.position(buffer.position() + length);
+		return slice.slice();
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		ByteBuffer bytes = readBytes(buffer);
+		return new String(Values.bytes(bytes, 0, bytes.limit()), Values.UTF8);
+	}
+
+	private static Column readColumn(ByteBuffer buffer) {
+		IntBuffer offsets = readInts(buffer);
+		return new Column(offsets, readBytes(buffer));
+	}
+
+	private static Map<String, Column> readColumns(ByteBuffer buffer) {
+		int keys = buffer.getInt();
+		Map<String, Column> columns = new LinkedHashMap<>(keys * 2);
+		for (int key = 0; key < keys; key++) {
+			String name = readString(buffer);
+			columns.put(name, readColumn(buffer));
+		}
+		return Collections.unmodifiableMap(columns);
+	}
+
+	/**
+	 * @return The number of vertices in the snapshot.
+	 */
+	public int vertexCount() {
+		return vertexCount;
+	}
+
+	/**
+	 * @return The number of edges in the snapshot.
+	 */
+	public int edgeCount() {
+		return edgeCount;
+	}
+
+	Object vertexId(int vertex) {
+		return vertexIds.get(vertex);
+	}
+
+	Object edgeId(int edge) {
+		return edgeIds.get(edge);
+	}
+
+	/**
+	 * @return The index of the label, or -1 if no edge has it.
+	 */
+	int label(String label) {
+		Integer index = labelIndexes.get(label);
+		return index == null ? -1 : index;
+	}
+
+	SnapshotVertex vertex(int vertex) {
+		return new SnapshotVertex(this, vertex);
+	}
+
+	SnapshotEdge edge(int edge) {
+		return new SnapshotEdge(this, edge);
+	}
+
+	/**
+	 * Look up an id exactly, then by its string form in the same way as
+	 * TinkerGraph so that <code>v(1)</code> finds a vertex with id "1".
+	 */
+	private static int find(Column ids, IntBuffer table, Object id) {
+		if (id == null) {
+			throw new IllegalArgumentException("Id cannot be null");
+		}
+		int found = ids.find(table, Values.encode(id));
+		if (found == -1 && !(id instanceof String)) {
+			found = ids.find(table, Values.encode(id.toString()));
+		}
+		return found;
+	}
+
+	@Override
+	public Features getFeatures() {
+		return FEATURES;
+	}
+
+	@Override
+	public Vertex getVertex(Object id) {
+		int vertex = find(vertexIds, vertexIdTable, id);
+		return vertex == -1 ? null : vertex(vertex);
+	}
+
+	@Override
+	public Edge getEdge(Object id) {
+		int edge = find(edgeIds, edgeIdTable, id);
+		return edge == -1 ? null : edge(edge);
+	}
+
+	/**
+	 * Pipes stop at {@link NoSuchElementException} without asking
+	 * <code>hasNext()</code>, the list iterator throws it for indexes out of
+	 * range.
+	 */
+	@Override
+	public Iterable<Vertex> getVertices() {
+		return new AbstractList<Vertex>() {
+			@Override
+			public Vertex get(int index) {
+				return vertex(Preconditions.checkElementIndex(index, vertexCount));
+			}
+
+			@Override
+			public int size() {
+				return vertexCount;
+			}
+		};
+	}
+
+	@Override
+	public Iterable<Edge> getEdges() {
+		return new AbstractList<Edge>() {
+			@Override
+			public Edge get(int index) {
+				return edge(Preconditions.checkElementIndex(index, edgeCount));
+			}
+
+			@Override
+			public int size() {
+				return edgeCount;
+			}
+		};
+	}
+
+	/**
+	 * Scan the column of the key, comparing encoded values so that nothing is
+	 * decoded.
+	 */
+	@Override
+	public Iterable<Vertex> getVertices(String key, Object value) {
+		final Column column = vertexColumns.get(key);
+		if (column == null || value == null) {
+			return Collections.emptyList();
+		}
+		final byte[] encoded = Values.encode(value);
+		if (!Values.comparable(encoded)) {
+			return Iterables.filter(getVertices(), new PropertyEquals<Vertex>(key, value));
+		}
+		return new Iterable<Vertex>() {
+			@Override
+			public Iterator<Vertex> iterator() {
+				return new ScanIterator<Vertex>(column, encoded) {
+					@Override
+					Vertex element(int slot) {
+						return vertex(slot);
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public Iterable<Edge> getEdges(String key, Object value) {
+		final Column column = edgeColumns.get(key);
+		if (column == null || value == null) {
+			return Collections.emptyList();
+		}
+		final byte[] encoded = Values.encode(value);
+		if (!Values.comparable(encoded)) {
+			return Iterables.filter(getEdges(), new PropertyEquals<Edge>(key, value));
+		}
+		return new Iterable<Edge>() {
+			@Override
+			public Iterator<Edge> iterator() {
+				return new ScanIterator<Edge>(column, encoded) {
+					@Override
+					Edge element(int slot) {
+						return edge(slot);
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public GraphQuery query() {
+		return new DefaultGraphQuery(this);
+	}
+
+	@Override
+	public Vertex addVertex(Object id) {
+		throw readOnly();
+	}
+
+	@Override
+	public void removeVertex(Vertex vertex) {
+		throw readOnly();
+	}
+
+	@Override
+	public Edge addEdge(Object id, Vertex outVertex, Vertex inVertex, String label) {
+		throw readOnly();
+	}
+
+	@Override
+	public void removeEdge(Edge edge) {
+		throw readOnly();
+	}
+
+	/**
+	 * Does nothing, the file is unmapped when the graph is garbage collected.
+	 */
+	@Override
+	public void shutdown() {
+	}
+
+	static UnsupportedOperationException readOnly() {
+		return new UnsupportedOperationException("Snapshot graphs are read only");
+	}
+
+	@Override
+	public String toString() {
+		return StringFactory.graphString(this, "vertices:" + vertexCount + " edges:" + edgeCount);
+	}
+
+	private static class PropertyEquals<E extends Element> implements Predicate<E> {
+		private final String key;
+		private final Object value;
+
+		PropertyEquals(String key, Object value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public boolean apply(E element) {
+			return value.equals(element.getProperty(key));
+		}
+	}
+
+	private abstract static class ScanIterator<E> implements Iterator<E> {
+		private final Column column;
+		private final byte[] encoded;
+		private int next = -1;
+
+		ScanIterator(Column column, byte[] encoded) {
+			this.column = column;
+			this.encoded = encoded;
+			advance();
+		}
+
+		private void advance() {
+			do {
+				next++;
+			} while (next < column.size() && !column.matches(next, encoded));
+		}
+
+		abstract E element(int slot);
+
+		@Override
+		public boolean hasNext() {
+			return next < column.size();
+		}
+
+		@Override
+		public E next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			E element = element(next);
+			advance();
+			return element;
+		}
+
+		@Override
+		public void remove() {
+			throw readOnly();
+		}
+	}
+}
@@ -0,0 +1,184 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom.snapshot;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import com.google.common.collect.Iterables;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.VertexQuery;
+import com.tinkerpop.blueprints.util.DefaultVertexQuery;
+import com.tinkerpop.blueprints.util.StringFactory;
+import com.tinkerpop.blueprints.util.VerticesFromEdgesIterable;
+
+/**
+ * @author Bryn Cooke (http://jglue.org)
+ */
+final class SnapshotVertex extends SnapshotElement implements Vertex {
+
+	SnapshotVertex(SnapshotGraph graph, int index) {
+		super(graph, index);
+	}
+
+	@Override
+	Map<String, Column> columns() {
+		return graph.vertexColumns;
+	}
+
+	@Override
+	Object readId() {
+		return graph.vertexId(index);
+	}
+
+	@Override
+	public Iterable<Edge> getEdges(Direction direction, String... labels) {
+		final int[] wanted = labels(labels);
+		if (wanted != null && wanted.length == 0) {
+			return Collections.emptyList();
+		}
+		switch (direction) {
+		case OUT:
+			return edges(graph.outOffsets, graph.outEdges, wanted);
+		case IN:
+			return edges(graph.inOffsets, graph.inEdges, wanted);
+		default:
+			return Iterables.concat(edges(graph.outOffsets, graph.outEdges, wanted),
+					edges(graph.inOffsets, graph.inEdges, wanted));
+		}
+	}
+
+	/**
+	 * @return The sorted indexes of the labels that some edge has, or
+	 *         <code>null</code> if all labels are wanted.
+	 */
+	private int[] labels(String... labels) {
+		if (labels.length == 0) {
+			return null;
+		}
+		int[] wanted = new int[labels.length];
+		int count = 0;
+		for (String label : labels) {
+			int found = graph.label(label);
+			if (found != -1) {
+				wanted[count++] = found;
+			}
+		}
+		wanted = Arrays.copyOf(wanted, count);
+		Arrays.sort(wanted);
+		return wanted;
+	}
+
+	private Iterable<Edge> edges(final IntBuffer offsets, final IntBuffer edges, final int[] wanted) {
+		final int start = offsets.get(index);
+		final int end = offsets.get(index + 1);
+		return new Iterable<Edge>() {
+			@Override
+			public Iterator<Edge> iterator() {
+				return new Iterator<Edge>() {
+					private int next = advance(start);
+
+					private int advance(int position) {
+						if (wanted != null) {
+							while (position < end
+									&& Arrays.binarySearch(wanted, graph.edgeLabels.get(edges.get(position))) < 0) {
+								position++;
+							}
+						}
+						return position;
+					}
+
+					@Override
+					public boolean hasNext() {
+						return next < end;
+					}
+
+					@Override
+					public Edge next() {
+						if (next >= end) {
+							throw new NoSuchElementException();
+						}
+						Edge edge = graph.edge(edges.get(next));
+						next = advance(next + 1);
+						return edge;
+					}
+
+					@Override
+					public void remove() {
+						throw SnapshotGraph.readOnly();
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public Iterable<Vertex> getVertices(Direction direction, String... labels) {
+		return new VerticesFromEdgesIterable(this, direction, labels);
+	}
+
+	@Override
+	public VertexQuery query() {
+		return new DefaultVertexQuery(this);
+	}
+
+	@Override
+	public Edge addEdge(String label, Vertex inVertex) {
+		throw SnapshotGraph.readOnly();
+	}
+
+	@Override
+	public String toString() {
+		return StringFactory.vertexString(this);
+	}
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom.snapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Encodes ids and property values as a type byte followed by the value.
+ * Strings and boxed primitives have compact encodings, anything else must be
+ * {@link Serializable}.
+ *
+ * @author Bryn Cooke (http://jglue.org)
+ */
+final class Values {
+
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final byte STRING = 1;
+	private static final byte INTEGER = 2;
+	private static final byte LONG = 3;
+	private static final byte DOUBLE = 4;
+	private static final byte FLOAT = 5;
+	private static final byte BOOLEAN = 6;
+	private static final byte SHORT = 7;
+	private static final byte BYTE = 8;
+	private static final byte SERIALIZED = 9;
+
+	private Values() {
+	}
+
+	static byte[] encode(Object value) {
+		if (value instanceof String) {
+			byte[] string = ((String) value).getBytes(UTF8);
+			return ByteBuffer.allocate(1 + string.length).put(STRING).put(string).array();
+		}
+		if (value instanceof Integer) {
+			return ByteBuffer.allocate(5).put(INTEGER).putInt((Integer) value).array();
+		}
+		if (value instanceof Long) {
+			return ByteBuffer.allocate(9).put(LONG).putLong((Long) value).array();
+		}
+		if (value instanceof Double) {
+			return ByteBuffer.allocate(9).put(DOUBLE).putDouble((Double) value).array();
+		}
+		if (value instanceof Float) {
+			return ByteBuffer.allocate(5).put(FLOAT).putFloat((Float) value).array();
+		}
+		if (value instanceof Boolean) {
+			return new byte[] { BOOLEAN, (byte) ((Boolean) value ? 1 : 0) };
+		}
+		if (value instanceof Short) {
+			return ByteBuffer.allocate(3).put(SHORT).putShort((Short) value).array();
+		}
+		if (value instanceof Byte) {
+			return new byte[] { BYTE, (Byte) value };
+		}
+		if (value instanceof Serializable) {
+			try {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				bytes.write(SERIALIZED);
+				try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+					out.writeObject(value);
+				}
+				return bytes.toByteArray();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		throw new IllegalArgumentException("Cannot store value of " + value.getClass() + ", it is not serializable");
+	}
+
+	/**
+	 * @return True if values with this encoding are equal exactly when their
+	 *         encodings are equal.
+	 */
+	static boolean comparable(byte[] encoded) {
+		return encoded[0] != SERIALIZED;
+	}
+
+	/**
+	 * Decode a value without moving the position of the buffer.
+	 */
+	static Object decode(ByteBuffer data, int start, int end) {
+		switch (data.get(start)) {
+		case STRING:
+			return new String(bytes(data, start + 1, end), UTF8);
+		case INTEGER:
+			return data.getInt(start + 1);
+		case LONG:
+			return data.getLong(start + 1);
+		case DOUBLE:
+			return data.getDouble(start + 1);
+		case FLOAT:
+			return data.getFloat(start + 1);
+		case BOOLEAN:
+			return data.get(start + 1) != 0;
+		case SHORT:
+			return data.getShort(start + 1);
+		case BYTE:
+			return data.get(start + 1);
+		case SERIALIZED:
+			try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes(data, start + 1, end)))) {
+				return in.readObject();
+			} catch (IOException | ClassNotFoundException e) {
+				throw new RuntimeException(e);
+			}
+		default:
+			throw new IllegalStateException("Unknown value type " + data.get(start) + " at " + start);
+		}
+	}
+
+	static byte[] bytes(ByteBuffer data, int start, int end) {
+		byte[] bytes = new byte[end - start];
+		ByteBuffer view = data.duplicate();
+		view.position(start);
+		view.get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Hash an encoded value. The hash depends only on the bytes, so it is the
+	 * same in every JVM.
+	 */
+	static int hash(byte[] encoded) {
+		int hash = 1;
+		for (byte b : encoded) {
+			hash = 31 * hash + b;
+		}
+		return hash ^ (hash >>> 16);
+	}
+}
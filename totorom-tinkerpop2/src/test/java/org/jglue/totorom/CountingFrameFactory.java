@@ -46,37 +46,31 @@
  */
 package org.jglue.totorom;
 
-import java.util.Comparator;
+import com.tinkerpop.blueprints.Element;
 
 /**
- * Framed elements before delegation.
- * 
- * @author bryn
+ * Counts the frames that are created.
  *
- * @param <T>
+ * @author Bryn Cooke (http://jglue.org)
  */
-class FramingComparator<T, K extends FramedElement> extends FrameMaker implements Comparator<T> {
+public class CountingFrameFactory implements FrameFactory {
 
-	private Comparator<T> delegate;
-
-	public FramingComparator(Comparator<T> delegate, FramedGraph graph) {
-		super(graph);
-		this.delegate = delegate;
+	private int created;
 
+	@Override
+	public <T extends FramedElement> T create(Element e, Class<T> kind) {
+		created++;
+		return FrameFactory.Default.create(e, kind);
 	}
 
-	public FramingComparator(Comparator<T> delegate, FramedGraph graph, Class<K> kind) {
-		super(graph, kind);
-		this.delegate = delegate;
+	/**
+	 * @return The number of frames created since the last reset.
+	 */
+	public int getCreated() {
+		return created;
 	}
 
-	@Override
-	public int compare(T o1, T o2) {
-
-		o1 = makeFrame(o1);
-		o2 = makeFrame(o2);
-
-		return delegate.compare(o1, o2);
+	public void reset() {
+		created = 0;
 	}
-
 }
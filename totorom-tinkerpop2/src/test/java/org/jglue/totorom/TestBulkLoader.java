@@ -0,0 +1,143 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+
+/**
+ * @author Bryn Cooke (http://jglue.org)
+ */
+public class TestBulkLoader {
+
+	public static class Initialized extends FramedVertex {
+		@Override
+		protected void init() {
+			setProperty("initialized", true);
+		}
+	}
+
+	private FramedGraph fg = new FramedGraph(new TinkerGraph(), FrameFactory.Default, TypeResolver.Java);
+
+	@Test
+	public void testLoad() {
+		try (BulkLoader loader = new BulkLoader(fg, 2)) {
+			loader.addVertex("bryn", Programmer.class, Collections.singletonMap("name", "Bryn"));
+			loader.addVertex("julia", Person.class, Collections.singletonMap("name", "Julia"));
+			loader.addVertex("fred", Person.class, Collections.singletonMap("name", "Fred"));
+			loader.addEdge("bryn", "knows", "julia", Knows.class, Collections.singletonMap("years", 15));
+			loader.addEdge("fred", "knows", "bryn", Knows.class);
+			loader.close();
+
+			Assert.assertEquals(3, loader.getVertexCount());
+			Assert.assertEquals(2, loader.getEdgeCount());
+			Assert.assertEquals(3, loader.getCommitCount());
+			Assert.assertEquals(3, loader.getVertexIds().size());
+		}
+
+		Person bryn = fg.V().has("name", "Bryn").next(Person.class);
+		Assert.assertEquals(Programmer.class, bryn.getClass());
+		List<Knows> knows = bryn.getKnowsList();
+		Assert.assertEquals(1, knows.size());
+		Assert.assertEquals(15, knows.get(0).getYears());
+		Assert.assertEquals("Julia", bryn.getFirst().getName());
+		Assert.assertEquals("Bryn", fg.V().has("name", "Fred").next(Person.class).getFirst().getName());
+	}
+
+	@Test
+	public void testInit() {
+		try (BulkLoader loader = new BulkLoader(fg)) {
+			loader.addVertex("a", Initialized.class);
+			loader.addVertex("b", Initialized.class);
+		}
+		Assert.assertEquals(2, fg.V().has("initialized", true).count());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testUnknownKey() {
+		try (BulkLoader loader = new BulkLoader(fg)) {
+			loader.addVertex("a", Person.class);
+			loader.addEdge("a", "knows", "b", Knows.class);
+		}
+	}
+
+	@Test
+	public void testCloseAfterFailedBatch() {
+		BulkLoader loader = new BulkLoader(fg);
+		loader.addVertex("a", Person.class);
+		loader.addEdge("a", "knows", "b", Knows.class);
+		try {
+			loader.close();
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			Assert.assertEquals("No vertex has been added with key b", e.getMessage());
+		}
+		// Closing again reports the lost batch rather than succeeding.
+		try {
+			loader.close();
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			Assert.assertEquals("No vertex has been added with key b", e.getCause().getMessage());
+		}
+		// Tinker graph is not transactional, so the vertex stays but its key
+		// is not recorded.
+		Assert.assertEquals(0, loader.getVertexIds().size());
+		Assert.assertEquals(1, fg.V().count());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testClosed() {
+		BulkLoader loader = new BulkLoader(fg);
+		loader.close();
+		loader.addVertex("a", Person.class);
+	}
+}
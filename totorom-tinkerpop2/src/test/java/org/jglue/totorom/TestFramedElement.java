@@ -46,6 +46,8 @@
  */
 package org.jglue.totorom;
 
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -110,6 +112,60 @@ public class TestFramedElement {
     }
     
     
+    @Test
+    public void testPropertyCache() {
+    	try (Transaction t = fg.tx().enablePropertyCache()) {
+    		Person p = fg.v(p1.getId()).next(Person.class);
+    		Assert.assertEquals("Bryn", p.getName());
+    		p1.element().setProperty("name", "Changed");
+    		Assert.assertEquals("Bryn", p.getName());
+    		p.setName("Bryn Cooke");
+    		Assert.assertEquals("Bryn Cooke", p.getName());
+    		Assert.assertNull(p.getProperty("missing"));
+
+    		p.setProperty("unit", TimeUnit.SECONDS);
+    		Assert.assertSame(TimeUnit.SECONDS, p.getProperty("unit", TimeUnit.class));
+    		Assert.assertEquals("SECONDS", p.getProperty("unit"));
+    		p.setProperty("unit", TimeUnit.DAYS);
+    		Assert.assertSame(TimeUnit.DAYS, p.getProperty("unit", TimeUnit.class));
+    	}
+
+    	Person p = fg.v(p1.getId()).next(Person.class);
+    	Assert.assertEquals("Bryn Cooke", p.getName());
+    	p1.element().setProperty("name", "Changed");
+    	Assert.assertEquals("Changed", p.getName());
+    }
+
+    @Test
+    public void testWriteBehind() {
+    	try (Transaction t = fg.tx().enableWriteBehind()) {
+    		Person p = fg.v(p1.getId()).next(Person.class);
+    		p.setName("First");
+    		p.setName("Second");
+    		p.setProperty("unit", TimeUnit.SECONDS);
+    		p.setProperty("name2", "Other");
+    		p.setProperty("name2", null);
+    		Assert.assertEquals("Second", p.getName());
+    		Assert.assertSame(TimeUnit.SECONDS, p.getProperty("unit", TimeUnit.class));
+    		Assert.assertEquals(Sets.newHashSet("name", "unit"), p.getPropertyKeys());
+    		Assert.assertEquals("Bryn", p1.element().getProperty("name"));
+    		Assert.assertNull(p1.element().getProperty("unit"));
+
+    		t.commit();
+    	}
+    	Assert.assertEquals("Second", p1.element().getProperty("name"));
+    	Assert.assertEquals("SECONDS", p1.element().getProperty("unit"));
+    	Assert.assertNull(p1.element().getProperty("name2"));
+
+    	try (Transaction t = fg.tx().enableWriteBehind()) {
+    		p1.setName("Discarded");
+    		t.rollback();
+    	}
+    	Assert.assertEquals("Second", p1.getName());
+    	p1.setName("Direct");
+    	Assert.assertEquals("Direct", p1.element().getProperty("name"));
+    }
+
     @Test
     public void testV() {
     	Assert.assertEquals(2, p1.V().count());
@@ -49,6 +49,8 @@ package org.jglue.totorom;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -57,12 +59,17 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
+import com.google.common.base.Function;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
+import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
+import com.tinkerpop.gremlin.Tokens.T;
 /**
  * @author Bryn Cooke (http://jglue.org)
  */
@@ -133,6 +140,21 @@ public class TestFramedGraph {
         Assert.assertEquals(o, person);
     }
     
+    @Test
+    public void testDefaultFrameFactory() {
+        Graph g = new TinkerGraph();
+        Person p1 = FrameFactory.Default.create(g.addVertex(null), Person.class);
+        Person p2 = FrameFactory.Default.create(g.addVertex(null), Person.class);
+        Assert.assertEquals(Person.class, p1.getClass());
+        Assert.assertNotSame(p1, p2);
+    }
+    
+    @Test(expected = RuntimeException.class)
+    public void testDefaultFrameFactoryAbstractFrame() {
+        Graph g = new TinkerGraph();
+        FrameFactory.Default.create(g.addVertex(null), FramedVertex.class);
+    }
+    
     @Mock
     private TransactionalGraph transactionalGraph;
     
@@ -216,6 +238,249 @@ public class TestFramedGraph {
     }
     
     
+    @Test
+    public void testLazyTypeResolution() {
+        Graph g = new TinkerGraph();
+        final int[] resolved = new int[1];
+        FramedGraph fg = new FramedGraph(g, FrameFactory.Default, new TypeResolver() {
+
+			@Override
+			public <T extends FramedElement> Class<T> resolve(Element element, Class<T> kind) {
+				resolved[0]++;
+				return TypeResolver.Java.resolve(element, kind);
+			}
+
+			@Override
+			public <T extends FramedElement> void init(Element element, Class<T> kind) {
+				TypeResolver.Java.init(element, kind);
+			}
+		});
+
+        Person p1 = fg.addVertex(Programmer.class);
+        p1.setName("Bryn");
+        Person p2 = fg.addVertex(Person.class);
+        p2.setName("Julia");
+        p1.addEdge("knows", p2);
+        resolved[0] = 0;
+
+        for (TVertex v : fg.V()) {
+        	Assert.assertEquals(TVertex.class, v.getClass());
+        }
+        Assert.assertEquals(1, fg.V().out("knows").inE().outV().count());
+        Assert.assertEquals(0, resolved[0]);
+
+        TVertex bryn = fg.V().has("name", "Bryn").next();
+        Assert.assertEquals(Programmer.class, bryn.reframe(Person.class).getClass());
+        Assert.assertEquals(1, resolved[0]);
+    }
+
+    @Test
+    public void testIteratorFramesEdges() {
+        Graph g = TinkerGraphFactory.createTinkerGraph();
+        FramedGraph fg = new FramedGraph(g);
+        for (Object e : fg.V().outE()) {
+        	Assert.assertEquals(TEdge.class, e.getClass());
+        }
+    }
+
+    @Test
+    public void testMultiPredicateQuery() {
+        TinkerGraph g = new TinkerGraph();
+        g.createKeyIndex("type", Vertex.class);
+        g.createKeyIndex("status", Vertex.class);
+        FramedGraph fg = new FramedGraph(g);
+        for (int count = 0; count < 20; count++) {
+        	TVertex v = fg.addVertex();
+        	v.setProperty("type", count % 2 == 0 ? "order" : "invoice");
+        	v.setProperty("status", count < 3 ? "open" : "closed");
+        	v.setProperty("total", count);
+        }
+
+        Assert.assertEquals(2, fg.V().has("type", "order").has("status", "open").count());
+        Assert.assertEquals(2, fg.V().has("status", "open").has("type", "order").count());
+        Assert.assertEquals(1, fg.V().has("type", "order").has("status", "open").has("total", T.gt, 0).count());
+        Assert.assertEquals(3, fg.V().has("type", "order").interval("total", 10, 16).count());
+        Assert.assertEquals(8, fg.V().has("type", "order").hasNot("status", "open").has("total").count());
+        Assert.assertEquals(0, fg.V().has("type", "order").hasNot("total").count());
+        Assert.assertEquals(2, fg.V().has("type", "order").limit(2).count());
+        Assert.assertEquals(2, fg.V().has("type", "order").has("status", "open").toList().size());
+        Assert.assertEquals(0, fg.V().has("type", "order").has("status", "open").out().count());
+    }
+
+    @Test
+    public void testMultiPredicateQueryProbeIsBounded() {
+        final int[] read = new int[1];
+        TinkerGraph g = new TinkerGraph() {
+
+			@Override
+			public Iterable<Vertex> getVertices(String key, Object value) {
+				return Iterables.transform(super.getVertices(key, value), new Function<Vertex, Vertex>() {
+
+					@Override
+					public Vertex apply(Vertex v) {
+						read[0]++;
+						return v;
+					}
+				});
+			}
+		};
+        g.createKeyIndex("type", Vertex.class);
+        g.createKeyIndex("status", Vertex.class);
+        g.createKeyIndex("region", Vertex.class);
+        FramedGraph fg = new FramedGraph(g);
+        for (int count = 0; count < 1000; count++) {
+        	TVertex v = fg.addVertex();
+        	v.setProperty("type", "order");
+        	v.setProperty("status", count < 5 ? "open" : "closed");
+        	v.setProperty("region", "emea");
+        }
+
+        Assert.assertEquals(5, fg.V().has("type", "order").has("status", "open").has("region", "emea").count());
+        // The unselective type lookup is probed, probing stops at the status
+        // lookup, and the query is driven by the status lookup.
+        Assert.assertEquals(QueryFilters.SELECTIVITY_PROBE + 5 + 5, read[0]);
+    }
+
+    @Test
+    public void testGlobalEdgeTraversal() {
+        TinkerGraph g = new TinkerGraph();
+        g.createKeyIndex("tx", Edge.class);
+        FramedGraph fg = new FramedGraph(g);
+        TVertex v1 = fg.addVertex();
+        TVertex v2 = fg.addVertex();
+        for (int count = 0; count < 10; count++) {
+        	TEdge e = v1.addEdge("audit", v2);
+        	e.setProperty("tx", "tx" + (count % 5));
+        	e.setProperty("seq", count);
+        }
+
+        Assert.assertEquals(10, fg.E().count());
+        Assert.assertEquals(2, fg.E().has("tx", "tx3").count());
+        Assert.assertEquals(1, fg.E().has("tx", "tx3").has("seq", 8).count());
+        Assert.assertEquals(3, fg.E().has("seq", T.lt, 3).count());
+        Assert.assertEquals(4, fg.E().limit(4).toList().size());
+        Assert.assertEquals(1, fg.E().has("tx", "tx3").limit(1).count());
+        Assert.assertEquals(v2, fg.E().has("tx", "tx1").inV().dedup().next());
+        Assert.assertEquals(10, fg.E().has("label", "audit").count());
+    }
+
+    @Test
+    public void testCountDoesNotFrame() {
+        Graph g = TinkerGraphFactory.createTinkerGraph();
+        CountingFrameFactory frames = new CountingFrameFactory();
+        FramedGraph fg = new FramedGraph(g, frames, TypeResolver.Untyped);
+        TVertex marko = fg.v(1).next();
+        frames.reset();
+
+        Assert.assertEquals(6, fg.V().count());
+        Assert.assertEquals(6, fg.E().count());
+        Assert.assertEquals(1, fg.V().has("name", "marko").count());
+        Assert.assertEquals(2, fg.E().has("weight", T.gt, 0.5f).count());
+        Assert.assertEquals(3, marko.out().count());
+        Assert.assertEquals(2, marko.out("knows").count());
+        Assert.assertEquals(3, marko.outE().count());
+        Assert.assertEquals(0, marko.inE().count());
+        Assert.assertEquals(1, marko.outE("knows").has("weight", T.gt, 0.5f).inV().count());
+        Assert.assertEquals(0, frames.getCreated());
+    }
+
+    @Test
+    public void testIdLookup() {
+        TinkerGraph g = Mockito.spy(TinkerGraphFactory.createTinkerGraph());
+        FramedGraph fg = new FramedGraph(g);
+        fg.setIdLookup(2, null);
+
+        Assert.assertEquals(Arrays.asList("3", "1", "3", "2", "1"), fg.v("3", "1", "3", "2", "1").id().toList());
+        Mockito.verify(g, Mockito.times(1)).getVertex("1");
+        Mockito.verify(g, Mockito.times(1)).getVertex("3");
+        Assert.assertEquals(Arrays.asList("7", "8", "7"), fg.e(Arrays.asList("7", "8", "7")).id().toList());
+        Mockito.verify(g, Mockito.times(1)).getEdge("7");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIdLookupRethrowsGraphException() {
+        TinkerGraph g = Mockito.spy(TinkerGraphFactory.createTinkerGraph());
+        Mockito.doThrow(new IllegalArgumentException()).when(g).getVertex("2");
+        FramedGraph fg = new FramedGraph(g);
+        fg.v("1", "2").toList();
+    }
+
+    @Test
+    public void testIdLookupParallel() {
+        Graph g = TinkerGraphFactory.createTinkerGraph();
+        FramedGraph fg = new FramedGraph(g);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+        	fg.setIdLookup(1, executor);
+        	Assert.assertEquals(Arrays.asList("6", "5", "4", "3", "2", "1", "6"), fg.v("6", "5", "4", "3", "2", "1", "6").id().toList());
+        	Assert.assertEquals(5, fg.v("1", "2", "4").out().count());
+        } finally {
+        	executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testIdentityMap() {
+        FramedGraph fg = new FramedGraph(TinkerGraphFactory.createTinkerGraph());
+        Assert.assertNotSame(fg.v(1).next(), fg.v(1).next());
+
+        try (Transaction t = fg.tx().enableIdentityMap(100)) {
+        	TVertex marko = fg.v(1).next();
+        	Assert.assertSame(marko, fg.v(1).next());
+        	Assert.assertSame(marko, fg.v(2).in().next());
+        	Assert.assertSame(marko, fg.V().has("name", "marko").toList().get(0));
+        	Assert.assertNotSame(marko, fg.v(1).next(Person.class));
+        	Assert.assertSame(fg.v(1).next(Person.class), fg.v(1).next(Person.class));
+
+        	t.commit();
+        	Assert.assertNotSame(marko, fg.v(1).next());
+        }
+        Assert.assertNotSame(fg.v(1).next(), fg.v(1).next());
+    }
+
+    @Test
+    public void testIdentityMapForEachFramed() {
+        FramedGraph fg = new FramedGraph(TinkerGraphFactory.createTinkerGraph());
+        try (Transaction t = fg.tx().enableIdentityMap(100)) {
+        	TVertex marko = fg.v(1).next();
+        	final int[] visited = new int[1];
+        	fg.V().forEachFramed(TVertex.class, new SideEffectFunction<TVertex>() {
+
+        		@Override
+        		public void execute(TVertex v) {
+        			visited[0]++;
+        		}
+        	});
+        	Assert.assertEquals(6, visited[0]);
+        	Assert.assertEquals("marko", marko.getProperty("name"));
+        	Assert.assertSame(marko, fg.v(1).next());
+        }
+    }
+
+    @Test
+    public void testIdentityMapBounded() {
+        FramedGraph fg = new FramedGraph(TinkerGraphFactory.createTinkerGraph());
+        try (Transaction t = fg.tx().enableIdentityMap(1)) {
+        	TVertex marko = fg.v(1).next();
+        	fg.v(2).next();
+        	Assert.assertNotSame(marko, fg.v(1).next());
+        }
+    }
+
+    @Test
+    public void testIdentityMapRemoveKeepsEdgeWithSameId() {
+        TinkerGraph g = new TinkerGraph();
+        g.addVertex("a");
+        g.addEdge("a", g.addVertex("b"), g.addVertex("c"), "knows");
+        FramedGraph fg = new FramedGraph(g);
+        try (Transaction t = fg.tx().enableIdentityMap(100)) {
+        	TEdge edge = fg.e("a").next();
+        	fg.v("a").next().remove();
+        	Assert.assertSame(edge, fg.e("a").next());
+        	Assert.assertNull(g.getVertex("a"));
+        }
+    }
+
     @Test
     public void testKeyValueTraversal() {
         Graph g = TinkerGraphFactory.createTinkerGraph();
@@ -46,6 +46,7 @@
  */
 package org.jglue.totorom;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -55,8 +56,11 @@ import org.junit.Test;
 import org.mockito.MockitoAnnotations;
 
 import com.google.common.collect.Lists;
+import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
+import com.tinkerpop.gremlin.Tokens.T;
 
 /**
  * @author Bryn Cooke (http://jglue.org)
@@ -126,6 +130,99 @@ public class TestFramedVertex {
         Assert.assertEquals(e1, p2.bothE(1).next(Knows.class));
     }
 
+    @Test
+    public void testAdjacent() {
+        Person p3 = fg.addVertex(Person.class);
+        p1.addEdge("likes", p3);
+
+        Assert.assertEquals(2, p1.out().count());
+        Assert.assertEquals(1, p1.out("likes").count());
+        Assert.assertEquals(Arrays.asList(p3), p1.out("likes").toList(Person.class));
+        Assert.assertEquals(2, p1.outE().toList().size());
+        Assert.assertEquals(0, p3.out().count());
+        Assert.assertFalse(p3.outE().hasNext());
+        Assert.assertEquals(p1, e1.outV().next(Person.class));
+        Assert.assertEquals(p2, e1.inV().next(Person.class));
+        Assert.assertEquals(Arrays.asList(p1, p2), e1.bothV().toList(Person.class));
+    }
+
+    @Test
+    public void testAdjacentContinued() {
+        Assert.assertEquals(2, p1.out().path().next().size());
+        Assert.assertEquals(3, p1.outE().inV().path().next().size());
+        Assert.assertEquals(p2, p1.out().has("name", "Julia").next(Person.class));
+        Assert.assertEquals(p1, e1.outV().out().in().next(Person.class));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAdjacentModifiedAfterNext() {
+        VertexTraversal<?, ?, ?> out = p1.out();
+        out.next();
+        out.path();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAdjacentEdgesModifiedAfterHasNext() {
+        EdgeTraversal<?, ?, ?> outE = p1.outE();
+        outE.hasNext();
+        outE.path();
+    }
+
+    @Test
+    public void testAdjacentFilteredAfterNext() {
+        FramedGraph fg = new FramedGraph(TinkerGraphFactory.createTinkerGraph());
+        TVertex marko = fg.v(1).next();
+
+        VertexTraversal<?, ?, ?> out = marko.out();
+        out.next();
+        Assert.assertEquals(2, out.has("name").toList().size());
+
+        out = marko.out();
+        out.next();
+        Assert.assertEquals(1, out.limit(1).toList().size());
+
+        out = marko.out();
+        out.next();
+        Assert.assertEquals(2, out.range(0, 5).toList().size());
+    }
+
+    @Test
+    public void testAdjacentEdgesFilteredAfterNext() {
+        FramedGraph fg = new FramedGraph(TinkerGraphFactory.createTinkerGraph());
+        TVertex marko = fg.v(1).next();
+
+        EdgeTraversal<?, ?, ?> outE = marko.outE();
+        outE.next();
+        Assert.assertEquals(2, outE.has("weight").toList().size());
+
+        outE = marko.outE();
+        outE.hasNext();
+        Assert.assertEquals(3, outE.has("weight").toList().size());
+
+        outE = marko.outE();
+        outE.next();
+        Assert.assertEquals(2, outE.range(0, 5).toList().size());
+    }
+
+    @Test
+    public void testAdjacentQuery() {
+        Person p3 = fg.addVertex(Person.class);
+        Knows e2 = p1.addKnows(p3);
+        e2.setYears(5);
+
+        Assert.assertEquals(Arrays.asList(e1), p1.outE("knows").has("years", 15).toList(Knows.class));
+        Assert.assertEquals(1, p1.outE("knows").interval("years", 10, 20).count());
+        Assert.assertEquals(1, p1.outE("knows").limit(1).count());
+        Assert.assertEquals(2, p1.outE("knows").range(0, 5).count());
+        Assert.assertEquals(0, p1.outE("knows").hasNot("years").count());
+        Assert.assertEquals(p3, p1.outE("knows").has("years", T.lt, 10).inV().next(Person.class));
+        Assert.assertEquals(p1, p3.inE("knows").has("years", 5).outV().next(Person.class));
+        Assert.assertEquals(1, p1.out("knows").limit(1).count());
+        Assert.assertEquals(1, p1.outE("knows").has("years", 15).inV().limit(1).count());
+        Assert.assertEquals(3, p1.outE("knows").has("years", 15).inV().path().next().size());
+        Assert.assertEquals(1, p1.outE("knows").limit(2).has("years", 15).count());
+    }
+
     @Test
     public void testLinkOutSingleLabel(){
         Person p3 = fg.addVertex(Person.class);
@@ -567,5 +664,49 @@ public class TestFramedVertex {
         Assert.assertEquals(label + " edge(in) was not created", 1, p3.in(label).retain(Lists.newArrayList(p5)).count());
     }
 
+    @Test
+    public void testShortestPath() {
+    	FramedGraph graph = new FramedGraph(TinkerGraphFactory.createTinkerGraph());
+    	TVertex v1 = graph.v(1).next();
+    	TVertex v2 = graph.v(2).next();
+    	TVertex v3 = graph.v(3).next();
+    	TVertex v5 = graph.v(5).next();
+
+    	Path path = v1.shortestPath(v5, 5);
+    	Assert.assertEquals(Arrays.<Object> asList(v1, graph.e(8).next(), graph.v(4).next(), graph.e(10).next(), v5), path);
+    	Assert.assertTrue(path.get(1) instanceof TEdge);
+    	Assert.assertNull(v1.shortestPath(v5, 1));
+    	Assert.assertNull(v5.shortestPath(v1, 5));
+    	Assert.assertNull(v1.shortestPath(v5, 5, "created"));
+    	Assert.assertEquals(5, v5.shortestPath(v1, Direction.IN, 5).size());
+    	Assert.assertEquals(Arrays.<Object> asList(v2, graph.e(7).next(), v1, graph.e(9).next(), v3),
+    			v2.shortestPath(v3, Direction.BOTH, 5));
+    	Assert.assertEquals(Arrays.<Object> asList(v1), v1.shortestPath(v1, 0));
+
+    	Assert.assertEquals(Arrays.<Object> asList(v1, graph.e(9).next(), v3), v1.shortestPath(v3, 5));
+    	TraversalFunction<TEdge, Integer> avoidDirect = new TraversalFunction<TEdge, Integer>() {
+    		@Override
+    		public Integer compute(TEdge argument) {
+    			return "9".equals(argument.getId()) ? 10 : 1;
+    		}
+    	};
+    	Assert.assertEquals(Arrays.<Object> asList(v1, graph.e(8).next(), graph.v(4).next(), graph.e(11).next(), v3),
+    			v1.shortestPath(v3, avoidDirect));
+    	Assert.assertNull(v5.shortestPath(v1, avoidDirect));
+
+    	Assert.assertEquals(4, graph.V().shortestPath(v3, Direction.OUT, 3).count());
+    	Assert.assertEquals(4, graph.V().shortestPath(v3, Direction.OUT, avoidDirect).count());
+    	Assert.assertEquals(5, graph.v(1).shortestPath(v5, Direction.OUT, 5).next().size());
+    }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void testShortestPathNegativeWeight() {
+    	FramedGraph graph = new FramedGraph(TinkerGraphFactory.createTinkerGraph());
+    	graph.v(1).next().shortestPath(graph.v(3).next(), new TraversalFunction<TEdge, Integer>() {
+    		@Override
+    		public Integer compute(TEdge argument) {
+    			return -1;
+    		}
+    	});
+    }
 }
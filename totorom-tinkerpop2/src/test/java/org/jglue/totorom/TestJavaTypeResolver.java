@@ -0,0 +1,141 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+
+/**
+ * @author Bryn Cooke (http://jglue.org)
+ */
+public class TestJavaTypeResolver {
+
+	@Test
+	public void testClassName() {
+		Graph g = new TinkerGraph();
+		FramedGraph fg = new FramedGraph(g, FrameFactory.Default, new JavaTypeResolver());
+		Programmer programmer = fg.addVertex(Programmer.class);
+
+		Assert.assertEquals(Programmer.class.getName(), programmer.getProperty(JavaTypeResolver.TYPE_PROPERTY));
+		Assert.assertEquals(Programmer.class, fg.V().next(Person.class).getClass());
+		Assert.assertEquals(Programmer.class, fg.V().next(Person.class).getClass());
+	}
+
+	@Test
+	public void testMissingClass() {
+		Graph g = new TinkerGraph();
+		Vertex v = g.addVertex(null);
+		v.setProperty(JavaTypeResolver.TYPE_PROPERTY, "org.jglue.totorom.DoesNotExist");
+		final int[] loaded = new int[1];
+		JavaTypeResolver resolver = new JavaTypeResolver() {
+
+			@Override
+			Class<?> loadClass(String name) throws ClassNotFoundException {
+				loaded[0]++;
+				return super.loadClass(name);
+			}
+		};
+		for (int count = 0; count < 2; count++) {
+			try {
+				resolver.resolve(v, Person.class);
+				Assert.fail();
+			} catch (RuntimeException e) {
+				Assert.assertEquals("The class org.jglue.totorom.DoesNotExist cannot be found", e.getMessage());
+			}
+		}
+		// The missing class is cached, so the class loader is only asked once.
+		Assert.assertEquals(1, loaded[0]);
+	}
+
+	@Test
+	public void testTypeCodes() {
+		Map<Integer, Class<? extends FramedElement>> codes = new HashMap<>();
+		codes.put(1, Person.class);
+		codes.put(2, Programmer.class);
+		Graph g = new TinkerGraph();
+		FramedGraph fg = new FramedGraph(g, FrameFactory.Default, new JavaTypeResolver(codes));
+		fg.addVertex(Programmer.class).setName("Bryn");
+		fg.addVertex(Program.class).setName("Totorom");
+
+		Assert.assertEquals(2, fg.V().has("name", "Bryn").next().getProperty(JavaTypeResolver.TYPE_PROPERTY));
+		Assert.assertEquals(Programmer.class, fg.V().has("name", "Bryn").next(Person.class).getClass());
+		Assert.assertEquals(Program.class.getName(),
+				fg.V().has("name", "Totorom").next().getProperty(JavaTypeResolver.TYPE_PROPERTY));
+		Assert.assertEquals(Program.class, fg.V().has("name", "Totorom").next(FramedVertex.class).getClass());
+
+		// Stores may read the code back as a long.
+		Vertex bryn = g.getVertices("name", "Bryn").iterator().next();
+		bryn.setProperty(JavaTypeResolver.TYPE_PROPERTY, 2L);
+		Assert.assertEquals(Programmer.class, fg.V().has("name", "Bryn").next(Person.class).getClass());
+
+		// Codes that would be truncated on to another code are rejected.
+		for (Object code : new Object[] { (1L << 32) + 2, 2.5 }) {
+			bryn.setProperty(JavaTypeResolver.TYPE_PROPERTY, code);
+			try {
+				fg.V().has("name", "Bryn").next(Person.class);
+				Assert.fail();
+			} catch (RuntimeException e) {
+				Assert.assertEquals("The type code " + code + " is not a valid type code", e.getMessage());
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDuplicateTypeCode() {
+		Map<Integer, Class<? extends FramedElement>> codes = new HashMap<>();
+		codes.put(1, Person.class);
+		codes.put(2, Person.class);
+		new JavaTypeResolver(codes);
+	}
+}
@@ -48,15 +48,25 @@ package org.jglue.totorom;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
 import com.tinkerpop.gremlin.Tokens.T;
 import com.tinkerpop.pipes.transform.TransformPipe.Order;
@@ -220,6 +230,32 @@ public class TestTraversals {
 		Assert.assertEquals(graph.v(2).next(), graph.V().order(Comparators.<TVertex> property("name")).out("knows").next());
 
 	}
+
+	@Test
+	public void testOrderBy() {
+		TraversalFunction<TVertex, Integer> age = new TraversalFunction<TVertex, Integer>() {
+			@Override
+			public Integer compute(TVertex argument) {
+				return argument.getProperty("age");
+			}
+		};
+		Assert.assertEquals(Lists.newArrayList(27, 29, 32, 35, null, null), graph.V().orderBy(age).property("age").toList());
+		Assert.assertEquals(Lists.newArrayList(35, 32, 29, 27, null, null), graph.V().orderBy(age, Order.DECR).property("age")
+				.toList());
+
+		Assert.assertEquals(Lists.newArrayList(29, 27), graph.V().orderBy(age, Order.DECR).range(2, 3).property("age").toList());
+		Assert.assertEquals(Lists.newArrayList(27, 29), graph.V().orderBy(age).limit(2).property("age").toList());
+		Assert.assertEquals(Lists.newArrayList(29, 32), graph.V().orderBy(age).range(1, 2).property("age").toList());
+		Assert.assertEquals(Lists.newArrayList("josh", "lop"),
+				graph.V().order(Comparators.<TVertex> property("name")).limit(2).property("name").toList());
+		Assert.assertEquals(1, graph.V().orderBy(age).range(0, 0).count());
+		Assert.assertEquals(6, graph.V().orderBy(age).range(0, Integer.MAX_VALUE).count());
+		Assert.assertEquals(5, graph.V().orderBy(age).range(1, Integer.MAX_VALUE).count());
+
+		List<Path> paths = graph.v(1).out().orderBy(age).limit(1).path().toList();
+		Assert.assertEquals(1, paths.size());
+		Assert.assertEquals(graph.v(2).next(TVertex.class), paths.get(0).get(1));
+	}
 	
 
 	@Test
@@ -497,6 +533,73 @@ public class TestTraversals {
 		}, 3).toList();
 		Assert.assertEquals(2, list.size());
 	}
+
+	@Test
+	public void testBreadthFirst() {
+		TraversalFunction<TVertex, VertexTraversal<?, ?, ?>> out = new TraversalFunction<TVertex, VertexTraversal<?, ?, ?>>() {
+
+			@Override
+			public VertexTraversal<?, ?, ?> compute(TVertex argument) {
+				return argument.out();
+			}
+		};
+		TraversalFunction<TVertex, VertexTraversal<?, ?, ?>> both = new TraversalFunction<TVertex, VertexTraversal<?, ?, ?>>() {
+
+			@Override
+			public VertexTraversal<?, ?, ?> compute(TVertex argument) {
+				return argument.both();
+			}
+		};
+		Assert.assertEquals(Sets.newHashSet("2", "3", "4", "5"), Sets.newHashSet(graph.v(1).breadthFirst(out, 3).id().toList()));
+		Assert.assertEquals(Lists.newArrayList("5"), graph.v(1).breadthFirst(out, 2, false).id().toList());
+		Assert.assertEquals(0, graph.v(1).breadthFirst(out, 3, false).count());
+		Assert.assertEquals(5, graph.v(1).breadthFirst(both, 10).count());
+		Assert.assertEquals(3, graph.v(1).breadthFirst(both, 1).count());
+	}
+
+	@Test
+	public void testBreadthFirstParallel() {
+		TinkerGraph g = new TinkerGraph();
+		Random random = new Random(42);
+		List<Vertex> vertices = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			vertices.add(g.addVertex(null));
+		}
+		for (Vertex v : vertices) {
+			for (int i = 0; i < 3; i++) {
+				v.addEdge("link", vertices.get(random.nextInt(vertices.size())));
+			}
+		}
+		FramedGraph fg = new FramedGraph(g);
+		TraversalFunction<TVertex, VertexTraversal<?, ?, ?>> out = new TraversalFunction<TVertex, VertexTraversal<?, ?, ?>>() {
+
+			@Override
+			public VertexTraversal<?, ?, ?> compute(TVertex argument) {
+				return argument.out();
+			}
+		};
+		final Set<ForkJoinPool> used = Collections.synchronizedSet(new HashSet<ForkJoinPool>());
+		TraversalFunction<TVertex, VertexTraversal<?, ?, ?>> recordingOut = new TraversalFunction<TVertex, VertexTraversal<?, ?, ?>>() {
+
+			@Override
+			public VertexTraversal<?, ?, ?> compute(TVertex argument) {
+				used.add(ForkJoinTask.getPool());
+				return argument.out();
+			}
+		};
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			fg.setParallelPool(pool);
+			List<Object> sequential = fg.V().limit(100).breadthFirst(out, 4).id().toList();
+			Assert.assertEquals(sequential, fg.V().limit(100).breadthFirst(recordingOut, 4, true, 4).id().toList());
+			Assert.assertEquals(sequential.size(), Sets.newHashSet(sequential).size());
+			// Large levels are expanded on the graph's pool, which is reused.
+			Assert.assertTrue(used.contains(pool));
+			Assert.assertFalse(pool.isShutdown());
+		} finally {
+			pool.shutdown();
+		}
+	}
 	
 	@Test
 	public void testNext() {
@@ -592,4 +695,260 @@ public class TestTraversals {
 		Assert.assertEquals(5, graph.V().count());
 		
 	}
+
+	@Test
+	public void testForEachFramed() {
+		final List<String> names = new ArrayList<>();
+		final List<TVertex> frames = new ArrayList<>();
+		graph.V().has("lang", "java").forEachFramed(TVertex.class, new SideEffectFunction<TVertex>() {
+
+			@Override
+			public void execute(TVertex v) {
+				names.add(v.getProperty("name", String.class));
+				frames.add(v);
+			}
+		});
+		Assert.assertEquals(2, names.size());
+		Assert.assertTrue(names.contains("lop"));
+		Assert.assertTrue(names.contains("ripple"));
+		Assert.assertSame(frames.get(0), frames.get(1));
+		try {
+			frames.get(0).getProperty("name");
+			Assert.fail("The frame must be detached after iteration");
+		} catch (IllegalStateException e) {
+		}
+		try {
+			frames.get(0).out().toList();
+			Assert.fail("The frame must be detached after iteration");
+		} catch (IllegalStateException e) {
+		}
+	}
+
+	@Test
+	public void testForEachFramedEdges() {
+		final List<Object> weights = new ArrayList<>();
+		graph.v(1).outE("knows").forEachFramed(TEdge.class, new SideEffectFunction<TEdge>() {
+
+			@Override
+			public void execute(TEdge e) {
+				weights.add(e.getProperty("weight"));
+			}
+		});
+		Assert.assertEquals(2, weights.size());
+	}
+
+	@Test
+	public void testForEachFramedGlobal() {
+		final int[] count = new int[1];
+		graph.V().forEachFramed(TVertex.class, new SideEffectFunction<TVertex>() {
+
+			@Override
+			public void execute(TVertex v) {
+				count[0]++;
+			}
+		});
+		Assert.assertEquals(6, count[0]);
+	}
+
+	@Test
+	public void testUnframed() {
+		UnframedResults<TVertex> vertices = graph.V().unframed();
+		Object vertex = vertices.next();
+		Assert.assertTrue(vertex instanceof Vertex);
+		Assert.assertEquals(TVertex.class, vertices.frame(vertex).getClass());
+
+		UnframedResults<Person> people = graph.v(1).out("knows").unframed(Person.class);
+		Assert.assertEquals(Person.class, people.frame(people.next()).getClass());
+
+		UnframedResults<Object> names = graph.V().has("name", "lop").property("name").unframed();
+		Assert.assertEquals("lop", names.frame(names.next()));
+	}
+
+	@Test
+	public void testParallel() {
+		Assert.assertEquals(6, graph.parallelV(2).chunkSize(2).count());
+		Assert.assertEquals(6, graph.parallelE(2).chunkSize(4).toList().size());
+		Assert.assertEquals(graph.V().toSet(), graph.parallelV(3).chunkSize(1).toSet());
+		Assert.assertEquals(graph.V().out().groupCount().cap(), graph.parallelV(2,
+				new TraversalFunction<VertexTraversal<?, ?, ?>, VertexTraversal<?, ?, ?>>() {
+
+					@Override
+					public VertexTraversal<?, ?, ?> compute(VertexTraversal<?, ?, ?> argument) {
+						return argument.out();
+					}
+				}).chunkSize(2).groupCount());
+		Assert.assertEquals(2, graph.parallelV(2, new TraversalFunction<VertexTraversal<?, ?, ?>, VertexTraversal<?, ?, ?>>() {
+
+			@Override
+			public VertexTraversal<?, ?, ?> compute(VertexTraversal<?, ?, ?> argument) {
+				return argument.has("lang", "java");
+			}
+		}).aggregate().size());
+	}
+
+	@Test
+	public void testParallelPool() {
+		final ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			graph.setParallelPool(pool);
+			final Set<ForkJoinPool> used = Collections.synchronizedSet(new HashSet<ForkJoinPool>());
+			TraversalFunction<VertexTraversal<?, ?, ?>, VertexTraversal<?, ?, ?>> record = new TraversalFunction<VertexTraversal<?, ?, ?>, VertexTraversal<?, ?, ?>>() {
+
+				@Override
+				public VertexTraversal<?, ?, ?> compute(VertexTraversal<?, ?, ?> argument) {
+					used.add(ForkJoinTask.getPool());
+					return argument;
+				}
+			};
+			Assert.assertEquals(6, graph.parallelV(2, record).chunkSize(1).count());
+			Assert.assertEquals(6, graph.parallelV(2, record).chunkSize(1).count());
+			Assert.assertEquals(Collections.singleton(pool), used);
+			// The pool is shared rather than shut down after each traversal.
+			Assert.assertFalse(pool.isShutdown());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testParallelWithPendingWrites() {
+		FramedGraph graph = new FramedGraph(TinkerGraphFactory.createTinkerGraph());
+		try (Transaction t = graph.tx().enableWriteBehind()) {
+			graph.v(1).next().setProperty("age", 30);
+			try {
+				graph.parallelV(2).sumLong("age");
+				Assert.fail();
+			} catch (IllegalStateException e) {
+			}
+			t.flush();
+			Assert.assertEquals(124, graph.parallelV(2).chunkSize(1).sumLong("age"));
+		}
+	}
+
+	@Test
+	public void testNumericAggregation() {
+		Assert.assertEquals(123, graph.V().sumLong("age"));
+		Assert.assertEquals(3.5, graph.E().sumDouble("weight"), 0.000001);
+		Assert.assertEquals(2, graph.E().sumLong("weight"));
+		Assert.assertEquals(59, graph.v(1).out("knows").sumLong("age"));
+		Assert.assertEquals(96, graph.V().has("name", "lop").in("created").sumLong("age"));
+		Assert.assertEquals(0, graph.V().sumLong("name"));
+
+		NumericStats stats = graph.V().stats("age");
+		Assert.assertEquals(4, stats.getCount());
+		Assert.assertEquals(27, stats.getMin(), 0);
+		Assert.assertEquals(35, stats.getMax(), 0);
+		Assert.assertEquals(30.75, stats.getMean(), 0.000001);
+		Assert.assertEquals(9.1875, stats.getVariance(), 0.000001);
+		Assert.assertTrue(Double.isNaN(graph.V().stats("missing").getMean()));
+
+		Assert.assertArrayEquals(new long[] { 1, 2, 1 }, graph.V().histogram("age", 28, 33));
+		Assert.assertArrayEquals(new long[] { 1, 3 }, graph.V().histogram("age", 29));
+		Assert.assertArrayEquals(new long[] { 1, 5, 8 }, graph.E().outV().outE().histogram("weight", 0.3, 0.45));
+		try {
+			graph.V().histogram("age", 33, 28);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+		}
+
+		// Missing ids are skipped and anything other than an element is
+		// rejected.
+		Assert.assertEquals(29, graph.v(1, 99).sumLong("age"));
+		try {
+			graph.V().property("age").sumLong("age");
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testParallelNumericAggregation() {
+		Assert.assertEquals(123, graph.parallelV(2).chunkSize(1).sumLong("age"));
+		Assert.assertEquals(3.5, graph.parallelE(2).chunkSize(2).sumDouble("weight"), 0.000001);
+		Assert.assertArrayEquals(new long[] { 1, 2, 1 }, graph.parallelV(3).chunkSize(1).histogram("age", 28, 33));
+		NumericStats stats = graph.parallelV(2).chunkSize(1).stats("age");
+		NumericStats sequential = graph.V().stats("age");
+		Assert.assertEquals(sequential.getCount(), stats.getCount());
+		Assert.assertEquals(sequential.getMin(), stats.getMin(), 0);
+		Assert.assertEquals(sequential.getMax(), stats.getMax(), 0);
+		Assert.assertEquals(sequential.getMean(), stats.getMean(), 0.000001);
+		Assert.assertEquals(sequential.getVariance(), stats.getVariance(), 0.000001);
+	}
+
+	@Test
+	public void testToListFramesOnce() {
+		List<TVertex> list = graph.V().out().toList(TVertex.class, 6);
+		Assert.assertEquals(6, list.size());
+		Assert.assertSame(list.get(0), list.get(0));
+		List<? extends TVertex> untyped = graph.V().out().toList();
+		Assert.assertSame(untyped.get(0), untyped.get(0));
+	}
+
+	@Test
+	public void testToSetFramesDistinct() {
+		CountingFrameFactory frames = new CountingFrameFactory();
+		FramedGraph counting = new FramedGraph(TinkerGraphFactory.createTinkerGraph(), frames, TypeResolver.Untyped);
+
+		Assert.assertEquals(4, counting.V().out().toSet(TVertex.class).size());
+		Assert.assertEquals(4, frames.getCreated());
+		Assert.assertEquals(4, counting.V().out().toSet().size());
+		Assert.assertEquals(8, frames.getCreated());
+	}
+
+	@Test
+	public void testFusedFilters() {
+		CountingFrameFactory frames = new CountingFrameFactory();
+		FramedGraph counting = new FramedGraph(TinkerGraphFactory.createTinkerGraph(), frames, TypeResolver.Untyped);
+
+		long count = counting.v(1).out().filter(new TraversalFunction<TVertex, Boolean>() {
+
+			@Override
+			public Boolean compute(TVertex v) {
+				return v.getProperty("name") != null;
+			}
+		}).filter(new TraversalFunction<TVertex, Boolean>() {
+
+			@Override
+			public Boolean compute(TVertex v) {
+				return !"lop".equals(v.getProperty("name"));
+			}
+		}).count();
+		Assert.assertEquals(2, count);
+		Assert.assertEquals(3, frames.getCreated());
+	}
+
+	@Test
+	public void testFilterAfterMark() {
+		Assert.assertEquals(1, graph.v(1).out().mark().filter(new TraversalFunction<TVertex, Boolean>() {
+
+			@Override
+			public Boolean compute(TVertex v) {
+				return "josh".equals(v.getProperty("name"));
+			}
+		}).out().filter(new TraversalFunction<TVertex, Boolean>() {
+
+			@Override
+			public Boolean compute(TVertex v) {
+				return "ripple".equals(v.getProperty("name"));
+			}
+		}).back().count());
+	}
+
+	@Test
+	public void testTransformIdentity() {
+		VertexTraversal<?, ?, ?> traversal = graph.V().out();
+		int pipes = TraversalBase.pipelineOf(traversal).getPipes().size();
+		Traversal<TVertex, ?, ?, ?> transformed = traversal.transform(TraversalFunctions.<TVertex> identity());
+		Assert.assertEquals(pipes, TraversalBase.pipelineOf(transformed).getPipes().size());
+		Assert.assertEquals(6, transformed.count());
+
+		Traversal<String, ?, ?, ?> names = graph.V().out().transform(new TraversalFunction<TVertex, String>() {
+
+			@Override
+			public String compute(TVertex v) {
+				return v.getProperty("name");
+			}
+		});
+		Assert.assertEquals(pipes + 1, TraversalBase.pipelineOf(names).getPipes().size());
+	}
 }
@@ -0,0 +1,195 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom.algorithms;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.jglue.totorom.FrameFactory;
+import org.jglue.totorom.FramedGraph;
+import org.jglue.totorom.JavaTypeResolver;
+import org.jglue.totorom.Person;
+import org.jglue.totorom.Program;
+import org.jglue.totorom.Programmer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
+
+/**
+ * @author Bryn Cooke (http://jglue.org)
+ */
+public class TestGraphAlgorithms {
+
+	private FramedGraph graph = new FramedGraph(TinkerGraphFactory.createTinkerGraph());
+
+	@Test
+	public void testSnapshot() {
+		AdjacencySnapshot snapshot = AdjacencySnapshot.of(graph);
+		Assert.assertEquals(6, snapshot.vertexCount());
+		Assert.assertEquals(6, snapshot.edgeCount());
+		int marko = snapshot.index("1");
+		Assert.assertEquals("1", snapshot.id(marko));
+		Assert.assertEquals(3, snapshot.outDegree(marko));
+		Assert.assertEquals(0, snapshot.inDegree(marko));
+		Assert.assertEquals(-1, snapshot.index("missing"));
+
+		snapshot = AdjacencySnapshot.of(graph, "knows");
+		Assert.assertEquals(2, snapshot.edgeCount());
+		Assert.assertEquals(1, snapshot.inDegree(snapshot.index("4")));
+	}
+
+	@Test
+	public void testSnapshotOfKind() {
+		FramedGraph fg = new FramedGraph(new TinkerGraph(), FrameFactory.Default, new JavaTypeResolver());
+		Person p1 = fg.addVertex(Person.class);
+		Person p2 = fg.addVertex(Person.class);
+		Programmer p3 = fg.addVertex(Programmer.class);
+		fg.addVertex(Program.class);
+		p1.addKnows(p2);
+		p2.addKnows(p3);
+		Graph base = fg.getBaseGraph();
+		Object programmer = fg.V().has(JavaTypeResolver.TYPE_PROPERTY, Programmer.class.getName()).next().getId();
+		Object program = fg.V().has(JavaTypeResolver.TYPE_PROPERTY, Program.class.getName()).next().getId();
+		base.addEdge(null, base.getVertex(programmer), base.getVertex(program), "created");
+
+		AdjacencySnapshot snapshot = AdjacencySnapshot.of(fg, Person.class);
+		Assert.assertEquals(3, snapshot.vertexCount());
+		Assert.assertEquals(2, snapshot.edgeCount());
+		Assert.assertEquals(-1, snapshot.index(program));
+	}
+
+	@Test
+	public void testPageRank() {
+		DoubleVertexValues ranks = new GraphAlgorithms(graph, AdjacencySnapshot.of(graph), 2).pageRank();
+		double sum = 0;
+		for (int vertex = 0; vertex < ranks.size(); vertex++) {
+			sum += ranks.value(vertex);
+		}
+		Assert.assertEquals(1.0, sum, 1e-9);
+		Assert.assertTrue(ranks.get("3") > ranks.get("5"));
+		Assert.assertTrue(ranks.get("5") > ranks.get("1"));
+		Assert.assertEquals(ranks.get("1"), ranks.get("6"), 1e-12);
+
+		ranks.write(graph, "rank", 2);
+		Assert.assertEquals(ranks.get("3"), (Double) graph.v("3").next().getProperty("rank"), 0);
+	}
+
+	@Test
+	public void testWeaklyConnectedComponents() {
+		graph.addVertex();
+		AdjacencySnapshot snapshot = AdjacencySnapshot.of(graph);
+		LongVertexValues components = new GraphAlgorithms(graph, snapshot, 2).weaklyConnectedComponents();
+		long component = components.get("1");
+		for (String id : new String[] { "2", "3", "4", "5", "6" }) {
+			Assert.assertEquals(component, components.get(id));
+		}
+		int distinct = 0;
+		for (int vertex = 0; vertex < components.size(); vertex++) {
+			if (components.value(vertex) == vertex) {
+				distinct++;
+			}
+		}
+		Assert.assertEquals(2, distinct);
+	}
+
+	@Test
+	public void testTriangleCount() {
+		LongVertexValues triangles = new GraphAlgorithms(graph, AdjacencySnapshot.of(graph), 2).triangleCount();
+		Assert.assertEquals(1, triangles.get("1"));
+		Assert.assertEquals(1, triangles.get("3"));
+		Assert.assertEquals(1, triangles.get("4"));
+		Assert.assertEquals(0, triangles.get("2"));
+		Assert.assertEquals(1, triangles.sum() / 3);
+	}
+
+	@Test
+	public void testParallel() {
+		TinkerGraph g = new TinkerGraph();
+		Random random = new Random(42);
+		Vertex[] vertices = new Vertex[5000];
+		for (int i = 0; i < vertices.length; i++) {
+			vertices[i] = g.addVertex(null);
+		}
+		for (int i = 0; i < vertices.length * 3; i++) {
+			vertices[random.nextInt(vertices.length)].addEdge("link", vertices[random.nextInt(vertices.length)]);
+		}
+		FramedGraph fg = new FramedGraph(g);
+		AdjacencySnapshot snapshot = AdjacencySnapshot.of(fg);
+		GraphAlgorithms sequential = new GraphAlgorithms(fg, snapshot, 1);
+		GraphAlgorithms parallel = new GraphAlgorithms(fg, snapshot, 4);
+
+		DoubleVertexValues ranks = sequential.pageRank();
+		DoubleVertexValues parallelRanks = parallel.pageRank();
+		LongVertexValues components = sequential.weaklyConnectedComponents();
+		LongVertexValues parallelComponents = parallel.weaklyConnectedComponents();
+		LongVertexValues triangles = sequential.triangleCount();
+		LongVertexValues parallelTriangles = parallel.triangleCount();
+		for (int vertex = 0; vertex < snapshot.vertexCount(); vertex++) {
+			Assert.assertEquals(ranks.value(vertex), parallelRanks.value(vertex), 0);
+			Assert.assertEquals(components.value(vertex), parallelComponents.value(vertex));
+			Assert.assertEquals(triangles.value(vertex), parallelTriangles.value(vertex));
+		}
+	}
+
+	@Test
+	public void testPool() {
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			GraphAlgorithms algorithms = new GraphAlgorithms(AdjacencySnapshot.of(graph), pool, 1);
+			Assert.assertEquals(1, algorithms.triangleCount().sum() / 3);
+			Assert.assertEquals(1, algorithms.triangleCount().sum() / 3);
+			// The pool is shared rather than shut down after each algorithm.
+			Assert.assertFalse(pool.isShutdown());
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
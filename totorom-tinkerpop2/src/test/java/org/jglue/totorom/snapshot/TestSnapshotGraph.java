@@ -0,0 +1,229 @@
+/**
+ * Copyright 2014-Infinity Bryn Cooke
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * This project is derived from code in the Tinkerpop project under the following licenses:
+ *
+ * Tinkerpop3
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Tinkerpop2
+ * Copyright (c) 2009-Infinity, TinkerPop [http://tinkerpop.com]
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the TinkerPop nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL TINKERPOP BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jglue.totorom.snapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.jglue.totorom.FramedGraph;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Sets;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
+
+/**
+ * @author Bryn Cooke (http://jglue.org)
+ */
+public class TestSnapshotGraph {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private SnapshotGraph snapshot;
+	private FramedGraph graph;
+
+	@Before
+	public void setup() throws IOException {
+		snapshot = export(TinkerGraphFactory.createTinkerGraph());
+		graph = new FramedGraph(snapshot);
+	}
+
+	private SnapshotGraph export(Graph source) throws IOException {
+		File file = folder.newFile();
+		SnapshotExporter.export(source, file);
+		return SnapshotGraph.open(file);
+	}
+
+	@Test
+	public void testTraversals() {
+		Assert.assertEquals(6, graph.V().count());
+		Assert.assertEquals(6, graph.E().count());
+		Assert.assertEquals(3, graph.v(1).out().count());
+		Assert.assertEquals(Sets.newHashSet("vadas", "josh"), graph.v(1).out("knows").property("name").toSet());
+		Assert.assertEquals(3, graph.v(4).both().count());
+		Assert.assertEquals(3, graph.v(4).both("knows", "created").count());
+		Assert.assertEquals(3, graph.v(3).in("created").count());
+		Assert.assertEquals(0, graph.v(3).out().count());
+		Assert.assertEquals(0, graph.v(1).out("missing").count());
+		Assert.assertEquals("1", graph.V().has("name", "marko").id().next());
+		Assert.assertEquals(29, graph.v(1).property("age").next());
+		Assert.assertEquals("created", graph.v(6).outE().label().next());
+		Assert.assertEquals(graph.v(3).next(), graph.e(12).inV().next());
+		Assert.assertEquals(0.2f, graph.e(12).property("weight").next());
+		Assert.assertEquals(2, graph.V().has("lang", "java").count());
+		Assert.assertEquals(Arrays.asList("josh", "lop", "marko", "peter", "ripple", "vadas"), graph.V()
+				.property("name").order().toList());
+	}
+
+	@Test
+	public void testLookups() {
+		Assert.assertEquals("1", snapshot.getVertex(1).getId());
+		Assert.assertEquals("1", snapshot.getVertex("1").getId());
+		Assert.assertNull(snapshot.getVertex("missing"));
+		Assert.assertEquals("knows", snapshot.getEdge(7).getLabel());
+		Assert.assertNull(snapshot.getEdge("missing"));
+		Assert.assertEquals(snapshot.getVertex(1), snapshot.getVertex("1"));
+		Assert.assertEquals(snapshot.getVertex(1).hashCode(), snapshot.getVertex("1").hashCode());
+
+		Assert.assertEquals(1, Iterables.size(snapshot.getVertices("name", "marko")));
+		Assert.assertEquals(1, Iterables.size(snapshot.getVertices("age", 27)));
+		Assert.assertEquals(0, Iterables.size(snapshot.getVertices("age", 27L)));
+		Assert.assertEquals(0, Iterables.size(snapshot.getVertices("missing", 27)));
+		Assert.assertEquals(2, Iterables.size(snapshot.getEdges("weight", 0.4f)));
+		Assert.assertEquals(Sets.newHashSet("name", "age"), snapshot.getVertex(1).getPropertyKeys());
+		Assert.assertEquals(Sets.newHashSet("name", "lang"), snapshot.getVertex(3).getPropertyKeys());
+	}
+
+	@Test
+	public void testQuery() {
+		Vertex marko = snapshot.getVertex(1);
+		Assert.assertEquals(2, marko.query().direction(Direction.OUT).labels("knows").count());
+		Assert.assertEquals(1, marko.query().direction(Direction.OUT).has("weight", 1.0f).count());
+		Assert.assertEquals(2, Iterables.size(snapshot.query().has("lang", "java").vertices()));
+	}
+
+	@Test
+	public void testReadOnly() {
+		Vertex marko = snapshot.getVertex(1);
+		try {
+			snapshot.addVertex(null);
+			Assert.fail();
+		} catch (UnsupportedOperationException e) {
+		}
+		try {
+			marko.setProperty("name", "bob");
+			Assert.fail();
+		} catch (UnsupportedOperationException e) {
+		}
+		try {
+			marko.addEdge("knows", marko);
+			Assert.fail();
+		} catch (UnsupportedOperationException e) {
+		}
+		try {
+			snapshot.getEdge(7).remove();
+			Assert.fail();
+		} catch (UnsupportedOperationException e) {
+		}
+		Assert.assertEquals("marko", marko.getProperty("name"));
+	}
+
+	@Test
+	public void testMatchesSource() throws IOException {
+		Random random = new Random(42);
+		TinkerGraph source = new TinkerGraph();
+		for (int count = 0; count < 500; count++) {
+			Vertex vertex = source.addVertex(null);
+			vertex.setProperty("name", "name" + count);
+			if (random.nextBoolean()) {
+				vertex.setProperty("score", random.nextLong());
+			}
+			if (random.nextBoolean()) {
+				vertex.setProperty("tags", Arrays.asList("a" + random.nextInt(10), random.nextDouble()));
+			}
+		}
+		Vertex[] vertices = Iterables.toArray(source.getVertices(), Vertex.class);
+		for (int count = 0; count < 2000; count++) {
+			Edge edge = vertices[random.nextInt(vertices.length)].addEdge("label" + random.nextInt(3),
+					vertices[random.nextInt(vertices.length)]);
+			edge.setProperty("weight", random.nextInt(100));
+			edge.setProperty("active", random.nextBoolean());
+		}
+
+		SnapshotGraph copy = export(source);
+		Assert.assertEquals(500, copy.vertexCount());
+		Assert.assertEquals(2000, copy.edgeCount());
+		for (Vertex vertex : source.getVertices()) {
+			Vertex copied = copy.getVertex(vertex.getId());
+			Assert.assertEquals(vertex.getPropertyKeys(), copied.getPropertyKeys());
+			for (String key : vertex.getPropertyKeys()) {
+				Assert.assertEquals(vertex.getProperty(key), copied.getProperty(key));
+			}
+			for (Direction direction : Direction.values()) {
+				Assert.assertEquals(ids(vertex.getEdges(direction)), ids(copied.getEdges(direction)));
+				Assert.assertEquals(ids(vertex.getEdges(direction, "label1")),
+						ids(copied.getEdges(direction, "label1")));
+				Assert.assertEquals(ids(vertex.getVertices(direction, "label0", "label2")),
+						ids(copied.getVertices(direction, "label0", "label2")));
+			}
+		}
+		for (Edge edge : source.getEdges()) {
+			Edge copied = copy.getEdge(edge.getId());
+			Assert.assertEquals(edge.getLabel(), copied.getLabel());
+			Assert.assertEquals(edge.getVertex(Direction.OUT).getId(), copied.getVertex(Direction.OUT).getId());
+			Assert.assertEquals(edge.getVertex(Direction.IN).getId(), copied.getVertex(Direction.IN).getId());
+			Assert.assertEquals(edge.getProperty("weight"), copied.getProperty("weight"));
+			Assert.assertEquals(edge.getProperty("active"), copied.getProperty("active"));
+		}
+	}
+
+	/**
+	 * Parallel edges and self loops repeat elements, so count them.
+	 */
+	private static Multiset<Object> ids(Iterable<? extends Element> elements) {
+		Multiset<Object> ids = HashMultiset.create();
+		for (Element element : elements) {
+			ids.add(element.getId());
+		}
+		return ids;
+	}
+}